@@ -0,0 +1,79 @@
+package uz.developers.postapp.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import uz.developers.postapp.config.CacheConfig;
+import uz.developers.postapp.entity.User;
+import uz.developers.postapp.interceptor.AuthInterceptor;
+import uz.developers.postapp.repository.UserRepository;
+import uz.developers.postapp.service.TokenService;
+import uz.developers.postapp.service.impl.TokenServiceImpl;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuthInterceptor.preHandle for a valid Basic header: with the credentials cache
+ * (digest + lookup) and without it (decode, split and user lookup on every request).
+ * The user repository is an in-memory stub, so the database round trip is not included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthInterceptorBenchmark {
+
+    private AuthInterceptor cached;
+
+    private AuthInterceptor uncached;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() throws Exception {
+        User user = BenchmarkData.user();
+        UserRepository userRepository = (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findByEmail")) {
+                        return user.getEmail().equals(args[0]) ? Optional.of(user) : Optional.empty();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        // Basic credentials only: the token service is asked whether a cached user was revoked since,
+        // it issues and verifies no tokens, so it needs no database
+        TokenService tokenService = new TokenServiceImpl(null, "benchmark-token-secret-of-32-bytes", Duration.ofHours(1));
+        cached = new AuthInterceptor(userRepository,
+                new CacheConfig().cacheManager(10_000, Duration.ofMinutes(10), 10_000, Duration.ofMinutes(10),
+                        10_000, Duration.ofMinutes(10), DataSize.ofMegabytes(32)),
+                tokenService);
+        uncached = new AuthInterceptor(userRepository, new NoOpCacheManager(), tokenService);
+
+        request = new MockHttpServletRequest("GET", "/api/posts/1");
+        request.addHeader("Authorization", "Basic " + Base64.getEncoder()
+                .encodeToString((user.getEmail() + ":" + user.getPassword()).getBytes(StandardCharsets.UTF_8)));
+        response = new MockHttpServletResponse();
+        cached.preHandle(request, response, null);
+    }
+
+    @Benchmark
+    public boolean cachedCredentials() throws Exception {
+        return cached.preHandle(request, response, null);
+    }
+
+    @Benchmark
+    public boolean uncachedCredentials() throws Exception {
+        return uncached.preHandle(request, response, null);
+    }
+}
@@ -0,0 +1,100 @@
+package uz.developers.postapp.benchmark;
+
+import uz.developers.postapp.entity.Category;
+import uz.developers.postapp.entity.Comment;
+import uz.developers.postapp.entity.Post;
+import uz.developers.postapp.entity.User;
+import uz.developers.postapp.payload.PostDto;
+import uz.developers.postapp.payload.PostExportRow;
+import uz.developers.postapp.repository.PostRepository;
+
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.util.stream.LongStream;
+
+/**
+ * Sample data shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    static final Date DATE = Date.valueOf("2024-01-01");
+
+    private BenchmarkData() {
+    }
+
+    static User user() {
+        User user = new User();
+        user.setId(7L);
+        user.setName("Nizomiddin Mirzanazarov");
+        user.setEmail("nizomiddin@example.com");
+        user.setPassword("password123");
+        return user;
+    }
+
+    static Category category() {
+        Category category = new Category();
+        category.setId(3L);
+        category.setTitle("Technology");
+        category.setDescription("Posts related to technological advancements");
+        return category;
+    }
+
+    static Post post(long id) {
+        Post post = new Post();
+        post.setId(id);
+        post.setTitle("Understanding Dependency Injection in Spring " + id);
+        post.setContent("In this post, we will explore the concept of Dependency Injection, \"DI\", and how Spring uses it.");
+        post.setImage("http://example.com/image.jpg");
+        post.setDate(DATE);
+        post.setCategory(category());
+        post.setUser(user());
+        return post;
+    }
+
+    static Comment comment(long id) {
+        Comment comment = new Comment();
+        comment.setId(id);
+        comment.setContent("Great explanation, thanks!");
+        comment.setUser(user());
+        comment.setPost(post(1L));
+        return comment;
+    }
+
+    static PostDto postDto(long id) {
+        PostDto dto = new PostDto();
+        dto.setId(id);
+        dto.setTitle("Understanding Dependency Injection in Spring " + id);
+        dto.setContent("In this post, we will explore the concept of Dependency Injection, \"DI\", and how Spring uses it.");
+        dto.setImage("http://example.com/image.jpg");
+        dto.setDate(DATE);
+        dto.setCategoryId(3L);
+        dto.setUserId(7L);
+        return dto;
+    }
+
+    static PostExportRow exportRow(long id) {
+        return new PostExportRow() {
+            public Long getId() { return id; }
+            public String getTitle() { return "Understanding Dependency Injection in Spring " + id; }
+            public String getCategoryTitle() { return "Technology"; }
+            public String getUserName() { return "Nizomiddin Mirzanazarov"; }
+            public String getContent() { return "In this post, we will explore the concept of Dependency Injection, \"DI\", and how Spring uses it."; }
+            public Date getDate() { return DATE; }
+        };
+    }
+
+    // PostRepository whose export streams produce the given number of rows without a database
+    static PostRepository exportRepository(int rows) {
+        return (PostRepository) Proxy.newProxyInstance(PostRepository.class.getClassLoader(),
+                new Class<?>[]{PostRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("streamExportRows")) {
+                        return LongStream.rangeClosed(1, rows).mapToObj(BenchmarkData::exportRow);
+                    }
+                    if (method.getName().startsWith("count")) {
+                        return (long) rows;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
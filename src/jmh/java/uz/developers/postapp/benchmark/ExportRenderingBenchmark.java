@@ -0,0 +1,45 @@
+package uz.developers.postapp.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import uz.developers.postapp.payload.ExportFormat;
+import uz.developers.postapp.payload.PostExportFilter;
+import uz.developers.postapp.service.impl.PostDownloadServiceImpl;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to render a bulk export of 1, 1k and 100k posts with PostDownloadServiceImpl.
+ * Rows come from a stub repository and the output is discarded, so this is the
+ * CSV writer / SXSSF / iText cost alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ExportRenderingBenchmark {
+
+    @Param({"CSV", "EXCEL", "PDF"})
+    public ExportFormat format;
+
+    @Param({"1", "1000", "100000"})
+    public int rows;
+
+    private PostDownloadServiceImpl postDownloadService;
+
+    @Setup
+    public void setUp() {
+        postDownloadService = new PostDownloadServiceImpl(null, BenchmarkData.exportRepository(rows), null,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(postDownloadService, "excelRowWindow", 100);
+    }
+
+    @Benchmark
+    public void render() throws Exception {
+        postDownloadService.renderExport(format, PostExportFilter.all(), OutputStream.nullOutputStream(), count -> { });
+    }
+}
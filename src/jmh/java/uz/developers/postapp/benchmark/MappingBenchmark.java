@@ -0,0 +1,90 @@
+package uz.developers.postapp.benchmark;
+
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import uz.developers.postapp.entity.Category;
+import uz.developers.postapp.entity.Comment;
+import uz.developers.postapp.entity.Post;
+import uz.developers.postapp.entity.User;
+import uz.developers.postapp.mapper.CategoryMapperImpl;
+import uz.developers.postapp.mapper.CommentMapperImpl;
+import uz.developers.postapp.mapper.PostMapper;
+import uz.developers.postapp.mapper.PostMapperImpl;
+import uz.developers.postapp.mapper.UserMapperImpl;
+import uz.developers.postapp.payload.CategoryDto;
+import uz.developers.postapp.payload.CommentDto;
+import uz.developers.postapp.payload.PostDto;
+import uz.developers.postapp.payload.UserDto;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-object cost of the entity ---> DTO mapping behind the *ServiceImpl.xxxToDto methods.
+ * For posts the reflective ModelMapper (the previous implementation) is kept as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private ModelMapper modelMapper;
+
+    private PostMapper postMapper;
+
+    private CommentMapperImpl commentMapper;
+
+    private UserMapperImpl userMapper;
+
+    private CategoryMapperImpl categoryMapper;
+
+    private Post post;
+
+    private Comment comment;
+
+    private User user;
+
+    private Category category;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        postMapper = new PostMapperImpl();
+        commentMapper = new CommentMapperImpl();
+        userMapper = new UserMapperImpl();
+        categoryMapper = new CategoryMapperImpl();
+        post = BenchmarkData.post(1L);
+        comment = BenchmarkData.comment(1L);
+        user = BenchmarkData.user();
+        category = BenchmarkData.category();
+        // resolve ModelMapper's implicit type map outside of the measurement
+        modelMapper.map(post, PostDto.class);
+    }
+
+    @Benchmark
+    public PostDto modelMapper() {
+        return modelMapper.map(post, PostDto.class);
+    }
+
+    @Benchmark
+    public PostDto mapStruct() {
+        return postMapper.toDto(post);
+    }
+
+    @Benchmark
+    public CommentDto commentToDto() {
+        return commentMapper.toDto(comment);
+    }
+
+    @Benchmark
+    public UserDto userToDto() {
+        return userMapper.toDto(user);
+    }
+
+    @Benchmark
+    public CategoryDto categoryToDto() {
+        return categoryMapper.toDto(category);
+    }
+}
@@ -0,0 +1,47 @@
+package uz.developers.postapp.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import uz.developers.postapp.payload.CustomApiResponse;
+import uz.developers.postapp.payload.PostDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Jackson serialization of the body returned by the post list endpoints,
+ * CustomApiResponse<Page<PostDto>>, with an ObjectMapper built the way Spring Boot builds it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+
+    private CustomApiResponse<Page<PostDto>> body;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<PostDto> posts = LongStream.rangeClosed(1, pageSize).mapToObj(BenchmarkData::postDto).toList();
+        body = new CustomApiResponse<>("Successfully retrieved the list of posts.", true,
+                new PageImpl<>(posts, PageRequest.of(0, pageSize), 10_000));
+    }
+
+    @Benchmark
+    public byte[] pageResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(body);
+    }
+}
@@ -0,0 +1,78 @@
+package uz.developers.postapp.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import uz.developers.postapp.interceptor.Bulkhead;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request throughput and latency (p99 in the SampleTime results) of Tomcat's default
+ * platform thread pool against a virtual thread per request.
+ * <p>
+ * JMH threads play the clients; each op submits one simulated request and waits for it.
+ * A request blocks in "JDBC" while holding a bulkhead permit (see BulkheadDataSource) and then
+ * blocks again writing to a slow client, which needs no connection. With 200 platform
+ * threads the clients queue for a thread; with virtual threads only the bulkhead limits.
+ * <p>
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.include=ThreadingModelBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Threads(400)
+@Fork(1)
+public class ThreadingModelBenchmark {
+
+    // Tomcat's default server.tomcat.threads.max
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public String threading;
+
+    @Param("10")
+    public int bulkheadPermits;
+
+    @Param("1")
+    public long jdbcMillis;
+
+    @Param("50")
+    public long writeMillis;
+
+    private ExecutorService executor;
+
+    private Bulkhead bulkhead;
+
+    @Setup
+    public void setUp() {
+        executor = "VIRTUAL".equals(threading)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+        bulkhead = new Bulkhead("benchmark", bulkheadPermits, Duration.ofSeconds(30), new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public Object request() throws ExecutionException, InterruptedException {
+        return executor.submit(() -> {
+            bulkhead.acquire();
+            try {
+                Thread.sleep(jdbcMillis);
+            } finally {
+                bulkhead.release();
+            }
+            Thread.sleep(writeMillis);
+            return null;
+        }).get();
+    }
+}
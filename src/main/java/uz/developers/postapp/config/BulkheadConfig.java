@@ -0,0 +1,56 @@
+package uz.developers.postapp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uz.developers.postapp.interceptor.Bulkhead;
+import uz.developers.postapp.interceptor.BulkheadDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * The bulkheads bound the JDBC connections held by requests, see BulkheadDataSource.
+ */
+@Configuration
+public class BulkheadConfig {
+
+    // Static, as a BeanPostProcessor is created before other beans; the MeterRegistry is only
+    // looked up once the dataSource exists
+    @Bean
+    public static BeanPostProcessor bulkheadDataSourcePostProcessor(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${app.bulkhead.reads.max-concurrent:6}") int maxReads,
+            @Value("${app.bulkhead.writes.max-concurrent:2}") int maxWrites,
+            @Value("${app.bulkhead.exports.max-concurrent:2}") int maxExports,
+            @Value("${app.bulkhead.max-wait:2s}") Duration maxWait) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof BulkheadDataSource)
+                        && "dataSource".equals(beanName)) {
+                    MeterRegistry registry = meterRegistry.getObject();
+                    return new BulkheadDataSource(dataSource,
+                            new Bulkhead("reads", maxReads, maxWait, registry),
+                            new Bulkhead("writes", maxWrites, maxWait, registry),
+                            new Bulkhead("exports", maxExports, maxWait, registry));
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Hibernate holds a connection for the whole session by default, which under open-in-view
+    // is the request: release it after each transaction, so the permit is given back with it
+    @Bean
+    public HibernatePropertiesCustomizer connectionHandlingCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -0,0 +1,68 @@
+package uz.developers.postapp.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * In-process caches. Caffeine evicts with W-TinyLFU, so a few hot entries
+ * survive a scan of cold ones. Stats are recorded for the actuator metrics.
+ * <p>
+ * The caches are transaction aware: puts and evictions made in a transaction are applied
+ * after it commits, so a read between an eviction and the commit cannot cache the old row.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String POSTS_CACHE = "posts";
+
+    public static final String CREDENTIALS_CACHE = "credentials";
+
+    public static final String COMMENTS_CACHE = "comments";
+
+    public static final String RESPONSE_BODIES_CACHE = "responseBodies";
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${app.cache.posts.maximum-size:10000}") long postsMaximumSize,
+            @Value("${app.cache.posts.ttl:10m}") Duration postsTtl,
+            @Value("${app.cache.credentials.maximum-size:10000}") long credentialsMaximumSize,
+            @Value("${app.cache.credentials.ttl:60s}") Duration credentialsTtl,
+            @Value("${app.cache.comments.maximum-size:10000}") long commentsMaximumSize,
+            @Value("${app.cache.comments.ttl:60s}") Duration commentsTtl,
+            @Value("${app.cache.response-bodies.max-size:32MB}") DataSize responseBodiesMaximumSize) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(POSTS_CACHE, Caffeine.newBuilder()
+                .maximumSize(postsMaximumSize)
+                .expireAfterWrite(postsTtl)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(CREDENTIALS_CACHE, Caffeine.newBuilder()
+                .maximumSize(credentialsMaximumSize)
+                .expireAfterWrite(credentialsTtl)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(COMMENTS_CACHE, Caffeine.newBuilder()
+                .maximumSize(commentsMaximumSize)
+                .expireAfterWrite(commentsTtl)
+                .recordStats()
+                .build());
+        // keyed by ETag, so an entry is never stale, it just stops being asked for
+        cacheManager.registerCustomCache(RESPONSE_BODIES_CACHE, Caffeine.newBuilder()
+                .maximumWeight(responseBodiesMaximumSize.toBytes())
+                .weigher((Object key, Object body) -> ((byte[]) body).length)
+                .recordStats()
+                .build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+}
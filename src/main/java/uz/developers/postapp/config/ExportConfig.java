@@ -0,0 +1,66 @@
+package uz.developers.postapp.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.util.DefaultTempFileCreationStrategy;
+import org.apache.poi.util.TempFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming Excel exports spill their rows to temp files. They go to a dedicated
+ * directory (app.export.temp-dir) instead of the shared system temp dir, so their
+ * disk use can be watched and files left behind by a crashed JVM are removed here.
+ * <p>
+ * Background export jobs run on a small fixed pool with a bounded queue: when it is
+ * full new jobs are rejected instead of piling up.
+ */
+@Slf4j
+@Configuration
+@EnableScheduling
+public class ExportConfig {
+
+    @Value("${app.export.temp-dir:${java.io.tmpdir}/post-app-export}")
+    private Path tempDir;
+
+    @PostConstruct
+    public void configureTempFiles() throws IOException {
+        Files.createDirectories(tempDir);
+        // the app is the only writer: anything still here is left over from a previous run
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(tempDir, "poi-sxssf-*")) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+                log.info("Deleted stale export temp file {}", leftover);
+            }
+        }
+        TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy(tempDir.toFile()));
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor exportJobExecutor(
+            @Value("${app.export.jobs.workers:2}") int workers,
+            @Value("${app.export.jobs.queue-capacity:20}") int queueCapacity,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        // with virtual threads the workers still stay bounded: each one holds a JDBC connection
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("export-job-", 1).factory()
+                : new CustomizableThreadFactory("export-job-");
+        return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+}
@@ -0,0 +1,30 @@
+package uz.developers.postapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Image renditions are rendered on a small fixed pool with a bounded queue, off the request
+ * path. Rendering is CPU bound, so the workers are platform threads even with virtual threads
+ * enabled: their number is what bounds the CPU and the memory of the decoded images.
+ */
+@Configuration
+public class ImageConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor imageRenditionExecutor(
+            @Value("${app.images.renditions.workers:2}") int workers,
+            @Value("${app.images.renditions.queue-capacity:100}") int queueCapacity) {
+        return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("image-rendition-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+}
@@ -0,0 +1,83 @@
+package uz.developers.postapp.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+import uz.developers.postapp.exceptions.ImageException;
+import uz.developers.postapp.service.ImageRenditionService;
+import uz.developers.postapp.service.ImageStorageService;
+
+import java.nio.file.FileVisitOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * One-off command rendering the renditions of images that were stored before them, or again
+ * after app.images.renditions.quality changed. The images of app.images.reprocess.directories
+ * (such as "bulit images") are stored first. The application exits when it is done, e.g.:
+ * <pre>
+ * ./mvnw spring-boot:run -Dspring-boot.run.arguments="--app.images.reprocess.enabled=true
+ *     --app.images.reprocess.directories=bulit\ images --spring.main.web-application-type=none"
+ * </pre>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty("app.images.reprocess.enabled")
+public class ImageReprocessRunner implements ApplicationRunner {
+
+    private final ImageStorageService imageStorageService;
+
+    private final ImageRenditionService imageRenditionService;
+
+    private final ConfigurableApplicationContext context;
+
+    @Value("${app.images.reprocess.directories:}")
+    private List<String> directories;
+
+    // renders the renditions that already exist again too
+    @Value("${app.images.reprocess.replace:false}")
+    private boolean replace;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        Set<String> imageNames = new LinkedHashSet<>(imageStorageService.listImages());
+        for (String directory : directories) {
+            try (Stream<Path> files = Files.walk(Path.of(directory), FileVisitOption.FOLLOW_LINKS)) {
+                for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                    try {
+                        String name = imageStorageService.storeImage(file);
+                        imageNames.add(name);
+                        log.info("Stored {} as {}{}", file, ImageStorageService.IMAGE_PATH, name);
+                    } catch (ImageException e) {
+                        log.info("Skipped {}: {}", file, e.getMessage());
+                    }
+                }
+            }
+        }
+
+        // submitted as fast as the workers take them, see renderRenditions
+        List<Future<?>> renditions = new ArrayList<>();
+        for (String name : imageNames) {
+            renditions.add(imageRenditionService.renderRenditions(name, replace));
+        }
+        // failures are logged and counted by the rendition service
+        for (Future<?> rendition : renditions) {
+            rendition.get();
+        }
+        log.info("Reprocessed the renditions of {} images", imageNames.size());
+        System.exit(SpringApplication.exit(context));
+    }
+}
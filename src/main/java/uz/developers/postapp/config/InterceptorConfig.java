@@ -1,7 +1,9 @@
 package uz.developers.postapp.config;
 
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import uz.developers.postapp.interceptor.AuthInterceptor;
@@ -13,10 +15,18 @@ public class InterceptorConfig implements WebMvcConfigurer {
 
     private final AuthInterceptor authInterceptor;
 
+    private final EntityManagerFactory entityManagerFactory;
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // Replaces spring.jpa.open-in-view: a comment stream is a request that stays open, and
+        // its EntityManager would hold the JDBC connection it used until the stream is closed
+        OpenEntityManagerInViewInterceptor openEntityManagerInView = new OpenEntityManagerInViewInterceptor();
+        openEntityManagerInView.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(openEntityManagerInView)
+                .excludePathPatterns("/api/comments/posts/*/stream");
         registry.addInterceptor(authInterceptor)
-                .addPathPatterns("/api/posts/**", "/api/categories/**", "/api/comments/**", "/api/post/downloads")
+                .addPathPatterns("/api/posts/**", "/api/categories/**", "/api/comments/**", "/api/post/downloads", "/api/post/exports/**")
                 .excludePathPatterns("/swagger-ui/**", "/v3/api-docs/**");
     }
 }
@@ -0,0 +1,27 @@
+package uz.developers.postapp.config;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocationResult;
+
+@Configuration
+public class MetricsConfig {
+
+    // Repository calls are timed by Spring Boot as spring.data.repository.invocations. Its tags are
+    // renamed to those of service.invocations (see ServiceMetricsAspect), so both read the same way.
+    @Bean
+    public RepositoryTagsProvider repositoryTagsProvider() {
+        return invocation -> {
+            RepositoryMethodInvocationResult result = invocation.getResult();
+            Throwable error = result == null ? null : result.getError();
+            return Tags.of(
+                    Tag.of("repository", invocation.getRepositoryInterface().getSimpleName()),
+                    Tag.of("operation", invocation.getMethod().getName()),
+                    Tag.of("outcome", error == null ? "success" : "error"),
+                    Tag.of("exception", error == null ? "none" : error.getClass().getSimpleName()));
+        };
+    }
+}
@@ -0,0 +1,239 @@
+package uz.developers.postapp.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the read-only transactions of the application's own @Transactional(readOnly = true)
+ * methods to a healthy replica, round robin, and everything else to the primary. Read-only
+ * transactions that Spring Data opens around a bare repository call stay on the primary: write
+ * paths load their entities that way, and must not read a lagging replica.
+ * <p>
+ * After a read-write transaction commits, the rest of the request reads from the primary, and the
+ * response carries the commit time in the X-Last-Write header and the last-write cookie. Requests
+ * that send either back within the read-your-writes window read from the primary too, whichever
+ * node serves them; node clocks only need to agree to well within the window.
+ * <p>
+ * The routing decision needs the transaction to be set up, so this data source is used behind
+ * a LazyConnectionDataSourceProxy (see ReplicaDataSourceConfig). A replica that fails to hand
+ * out a connection is marked down and the primary used instead; checkReplicas() brings it back.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+
+    // transactions opened by SimpleJpaRepository are named after its methods
+    private static final String SPRING_DATA_TRANSACTION_PREFIX = "org.springframework.data.";
+
+    private static final String WROTE_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".wrote";
+
+    public static final String LAST_WRITE_HEADER = "X-Last-Write";
+
+    public static final String LAST_WRITE_COOKIE = "last-write";
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final Duration readYourWritesWindow;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    Duration readYourWritesWindow, MeterRegistry meterRegistry) {
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource);
+            this.replicas.add(replica);
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .description("Whether the replica receives read-only transactions")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        });
+        this.readYourWritesWindow = readYourWritesWindow;
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            trackWrite();
+            return PRIMARY;
+        }
+        String transactionName = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (transactionName == null || transactionName.startsWith(SPRING_DATA_TRANSACTION_PREFIX) || wroteRecently()) {
+            return PRIMARY;
+        }
+        Replica replica = nextHealthyReplica();
+        return replica == null ? PRIMARY : replica.name;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        DataSource target = getResolvedDataSources().get(key);
+        if (PRIMARY.equals(key)) {
+            return target.getConnection();
+        }
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            markDown(key, e);
+            return getResolvedDefaultDataSource().getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // replicas are configured with the primary's credentials
+        return getConnection();
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica-health-interval:PT5S}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(1);
+            } catch (SQLException e) {
+                healthy = false;
+            }
+            if (healthy && !replica.healthy) {
+                log.info("Replica {} is back, read-only transactions go to it again", replica.name);
+            } else if (!healthy && replica.healthy) {
+                log.warn("Replica {} failed its health check, read-only transactions go elsewhere", replica.name);
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    @PreDestroy
+    public void closeReplicas() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private Replica nextHealthyReplica() {
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(replicas.size(), 1));
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private void markDown(Object key, SQLException e) {
+        for (Replica replica : replicas) {
+            if (replica.name.equals(key) && replica.healthy) {
+                replica.healthy = false;
+                log.warn("Replica {} is unavailable, read-only transactions go elsewhere", key, e);
+            }
+        }
+    }
+
+    // Once a read-write transaction commits, the request and the client read from the primary
+    private void trackWrite() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                request.setAttribute(WROTE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+                if (request instanceof ServletRequestAttributes attributes && attributes.getResponse() != null) {
+                    sendLastWrite(attributes.getResponse());
+                }
+            }
+        });
+    }
+
+    // the cookie is for browsers, the header for clients that echo it back themselves
+    private void sendLastWrite(HttpServletResponse response) {
+        String lastWrite = Long.toString(System.currentTimeMillis());
+        response.setHeader(LAST_WRITE_HEADER, lastWrite);
+        Cookie cookie = new Cookie(LAST_WRITE_COOKIE, lastWrite);
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setAttribute("SameSite", "Lax");
+        cookie.setMaxAge((int) Math.max(readYourWritesWindow.toSeconds(), 1));
+        response.addCookie(cookie);
+    }
+
+    private boolean wroteRecently() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return false;
+        }
+        if (request.getAttribute(WROTE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            return true;
+        }
+        Long lastWrite = request instanceof ServletRequestAttributes attributes ? lastWrite(attributes.getRequest()) : null;
+        // a time in the future, from clock skew or made up by the client, counts only within the window too
+        return lastWrite != null && Math.abs(System.currentTimeMillis() - lastWrite) < readYourWritesWindow.toMillis();
+    }
+
+    private static Long lastWrite(HttpServletRequest request) {
+        String value = request.getHeader(LAST_WRITE_HEADER);
+        if (value == null && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (LAST_WRITE_COOKIE.equals(cookie.getName())) {
+                    value = cookie.getValue();
+                }
+            }
+        }
+        try {
+            return value == null ? null : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static class Replica {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private volatile boolean healthy = true;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
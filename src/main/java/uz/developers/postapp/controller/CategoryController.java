@@ -8,10 +8,17 @@ import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 import uz.developers.postapp.exceptions.CategoryException;
 import uz.developers.postapp.payload.CategoryDto;
 import uz.developers.postapp.payload.CustomApiResponse;
 import uz.developers.postapp.service.CategoryService;
+import uz.developers.postapp.service.ResponseBodyCacheService;
+import uz.developers.postapp.utils.ETags;
+
+import java.io.IOException;
+import java.util.List;
 
 /**
  * REST controller for managing categories, offering endpoints for
@@ -25,6 +32,8 @@ public class CategoryController {
 
     private final CategoryService categoryService;
 
+    private final ResponseBodyCacheService responseBodyCacheService;
+
 
     /**
      * Retrieve a paginated list of categories.
@@ -35,15 +44,26 @@ public class CategoryController {
      */
     @Operation(summary = "Get all Categories with Pagination", description = "Retrieve a paginated list of all categories.")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved the list of categories.")
+    @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match.")
     @GetMapping
     public ResponseEntity<CustomApiResponse<Page<CategoryDto>>> getAllCategories(
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int size) {
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            ServletWebRequest webRequest) throws IOException {
         Page<CategoryDto> categoryDtos = categoryService.getAllCategories(page, size);
-        return new ResponseEntity<>(new CustomApiResponse<>(
+        String etag = ETags.weak(categoryDtos.getNumber(), categoryDtos.getSize(), categoryDtos.getTotalElements(),
+                categoryDtos.getContent().stream().map(CategoryController::versionOf).toList());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        CustomApiResponse<Page<CategoryDto>> response = new CustomApiResponse<>(
                 "Successfully retrieved the list of categories.",
                 true,
-                categoryDtos), HttpStatus.OK);
+                categoryDtos);
+        if (responseBodyCacheService.sendGzipped(etag, response, webRequest)) {
+            return null;
+        }
+        return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
 
@@ -57,10 +77,16 @@ public class CategoryController {
     @Operation(summary = "Get Category by ID", description = "Retrieve a category by their unique identifier.")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved the category.")
     @ApiResponse(responseCode = "404", description = "Category not found.")
+    @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match.")
     @GetMapping("/{id}")
-    public ResponseEntity<CustomApiResponse<CategoryDto>> getCategoryById(@PathVariable Long id) {
+    public ResponseEntity<CustomApiResponse<CategoryDto>> getCategoryById(
+            @PathVariable Long id,
+            WebRequest webRequest) {
         CategoryDto categoryDto = categoryService.getCategoryById(id)
                 .orElseThrow(() -> new CategoryException("Category not found"));
+        if (webRequest.checkNotModified(ETags.weak(versionOf(categoryDto)))) {
+            return null;
+        }
         return new ResponseEntity<>(new CustomApiResponse<>(
                 "Successfully retrieved the category.",
                 true,
@@ -126,4 +152,7 @@ public class CategoryController {
                 null), HttpStatus.NO_CONTENT);
     }
 
+    private static List<Object> versionOf(CategoryDto category) {
+        return List.of(category.getId(), category.getVersion());
+    }
 }
@@ -7,13 +7,21 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import uz.developers.postapp.entity.User;
 import uz.developers.postapp.exceptions.CommentException;
 import uz.developers.postapp.payload.CommentDto;
 import uz.developers.postapp.payload.CustomApiResponse;
 import uz.developers.postapp.service.CommentService;
+import uz.developers.postapp.service.CommentStreamService;
+import uz.developers.postapp.utils.ETags;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * REST controller for managing comments, offering endpoints for
@@ -27,6 +35,8 @@ public class CommentController {
 
     private final CommentService commentService;
 
+    private final CommentStreamService commentStreamService;
+
 
     /**
      * Retrieve a list of all comments for a specific post.
@@ -38,12 +48,18 @@ public class CommentController {
      */
     @Operation(summary = "Get all Comments by Post ID", description = "Retrieve a list of all comments for specific post.")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved the list of comments for specific post.")
+    @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match.")
     @GetMapping("/posts/{postId}")
     public ResponseEntity<CustomApiResponse<Page<CommentDto>>> getAllCommentsByPostId(
             @PathVariable Long postId,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int size) {
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            WebRequest webRequest) {
         Page<CommentDto> commentDtos = commentService.getAllCommentsByPostId(postId, page, size);
+        if (webRequest.checkNotModified(ETags.weak(commentDtos.getNumber(), commentDtos.getSize(), commentDtos.getTotalElements(),
+                commentDtos.getContent().stream().map(CommentController::versionOf).toList()))) {
+            return null;
+        }
         return new ResponseEntity<>(new CustomApiResponse<>(
                 "Successfully retrieved the list of comments.",
                 true,
@@ -51,6 +67,57 @@ public class CommentController {
     }
 
 
+    /**
+     * Retrieve the first comments of several posts in one call, e.g. for a feed.
+     * <p>
+     * Comments are returned oldest first, grouped by post ID in the order of the given IDs;
+     * a post without comments gets an empty list.
+     *
+     * @param ids   the IDs of the posts
+     * @param limit the maximum number of comments per post
+     * @return a ResponseEntity containing a CustomApiResponse with the comments by post ID
+     */
+    @Operation(summary = "Get first Comments of Posts", description = "Retrieve the first comments of several posts in one call.")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved the comments of the posts.")
+    @ApiResponse(responseCode = "400", description = "Too many or no post IDs, or limit out of range.")
+    @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match.")
+    @GetMapping("/posts")
+    public ResponseEntity<CustomApiResponse<Map<Long, List<CommentDto>>>> getFirstCommentsByPostIds(
+            @RequestParam("ids") List<Long> ids,
+            @RequestParam(value = "limit", defaultValue = "3") int limit,
+            WebRequest webRequest) {
+        Map<Long, List<CommentDto>> comments = commentService.getFirstCommentsByPostIds(ids, limit);
+        if (webRequest.checkNotModified(ETags.weak(comments.entrySet().stream()
+                .map(post -> List.of(post.getKey(), post.getValue().stream().map(CommentController::versionOf).toList()))
+                .toList()))) {
+            return null;
+        }
+        return new ResponseEntity<>(new CustomApiResponse<>(
+                "Successfully retrieved the comments of the posts.",
+                true,
+                comments), HttpStatus.OK);
+    }
+
+
+    /**
+     * Subscribe to the new comments of a post as Server-Sent Events, instead of polling for them.
+     * <p>
+     * Each new comment is sent as a "comment" event with the comment ID as event ID; comment
+     * lines are sent as heartbeats. A client that falls behind is disconnected and should
+     * reload the comments when it reconnects.
+     *
+     * @param postId the ID of the post
+     * @return the event stream
+     */
+    @Operation(summary = "Stream new Comments of Post", description = "Receive the new comments of a post as Server-Sent Events.")
+    @ApiResponse(responseCode = "200", description = "Comment stream opened.")
+    @ApiResponse(responseCode = "404", description = "Post not found.")
+    @GetMapping(value = "/posts/{postId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamComments(@PathVariable Long postId) {
+        return commentStreamService.subscribe(postId);
+    }
+
+
     /**
      * Retrieve a user by their unique ID using the provided CommentDto.
      *
@@ -61,10 +128,16 @@ public class CommentController {
     @Operation(summary = "Get Comment by ID", description = "Retrieve a user by their unique identifier.")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved the comment.")
     @ApiResponse(responseCode = "404", description = "Comment not found.")
+    @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match.")
     @GetMapping("/{id}")
-    public ResponseEntity<CustomApiResponse<CommentDto>> getCommentById(@PathVariable Long id) {
+    public ResponseEntity<CustomApiResponse<CommentDto>> getCommentById(
+            @PathVariable Long id,
+            WebRequest webRequest) {
         CommentDto commentDto = commentService.getCommentById(id)
                 .orElseThrow(() -> new CommentException("Comment not found"));
+        if (webRequest.checkNotModified(ETags.weak(versionOf(commentDto)))) {
+            return null;
+        }
         return new ResponseEntity<>(new CustomApiResponse<>(
                 "Successfully retrieved the comment.",
                 true,
@@ -140,4 +213,8 @@ public class CommentController {
                 true,
                 null), HttpStatus.NO_CONTENT);
     }
+
+    private static List<Object> versionOf(CommentDto comment) {
+        return List.of(comment.getId(), comment.getVersion());
+    }
 }
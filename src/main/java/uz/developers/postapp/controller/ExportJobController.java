@@ -0,0 +1,88 @@
+package uz.developers.postapp.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import uz.developers.postapp.payload.CustomApiResponse;
+import uz.developers.postapp.payload.ExportJobDto;
+import uz.developers.postapp.payload.ExportJobRequest;
+import uz.developers.postapp.service.ExportJobService;
+import uz.developers.postapp.utils.FileRangeSender;
+
+import java.io.IOException;
+
+/**
+ * REST controller for background exports: a job is submitted, polled
+ * until it is done, and its file is then downloaded.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/post/exports")
+public class ExportJobController {
+
+    private final ExportJobService exportJobService;
+
+    /**
+     * Submits an export of posts to be rendered in the background.
+     *
+     * @param request the format and the posts to export
+     * @return a ResponseEntity with a CustomApiResponse containing the queued job
+     */
+    @Operation(summary = "Submit Export Job", description = "Queue an export of posts as CSV, Excel or PDF.")
+    @ApiResponse(responseCode = "202", description = "Export job queued successfully.")
+    @ApiResponse(responseCode = "503", description = "Too many exports are in progress.")
+    @PostMapping
+    public ResponseEntity<CustomApiResponse<ExportJobDto>> submitJob(@RequestBody ExportJobRequest request) {
+        ExportJobDto job = exportJobService.submitJob(request);
+        return new ResponseEntity<>(new CustomApiResponse<>(
+                "Export job queued successfully.",
+                true,
+                job), HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Retrieves the status and progress of an export job.
+     *
+     * @param jobId the ID of the job
+     * @return a ResponseEntity with a CustomApiResponse containing the job
+     */
+    @Operation(summary = "Get Export Job", description = "Retrieve the status and progress of an export job.")
+    @ApiResponse(responseCode = "200", description = "Export job retrieved successfully.")
+    @ApiResponse(responseCode = "404", description = "Export job not found.")
+    @GetMapping("/{jobId}")
+    public ResponseEntity<CustomApiResponse<ExportJobDto>> getJob(@PathVariable("jobId") String jobId) {
+        ExportJobDto job = exportJobService.getJob(jobId);
+        return new ResponseEntity<>(new CustomApiResponse<>(
+                "Export job retrieved successfully.",
+                true,
+                job), HttpStatus.OK);
+    }
+
+    /**
+     * Downloads the file of a finished export job.
+     * Supports Range requests, so an interrupted download can be resumed.
+     *
+     * @param jobId    the ID of the job
+     * @param response to write the file to
+     */
+    @Operation(summary = "Download Export File", description = "Download the file of a finished export job, optionally a byte range of it.")
+    @ApiResponse(responseCode = "200", description = "Export file downloaded.")
+    @ApiResponse(responseCode = "206", description = "Requested range of the export file downloaded.")
+    @ApiResponse(responseCode = "404", description = "Export job not found.")
+    @GetMapping("/{jobId}/file")
+    public void downloadFile(
+            @PathVariable("jobId") String jobId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        ExportJobDto job = exportJobService.getJob(jobId);
+        FileRangeSender.send(exportJobService.getJobFile(jobId),
+                job.getFormat().getContentType(),
+                job.getFilter().fileName() + "." + job.getFormat().getExtension(),
+                request, response);
+    }
+}
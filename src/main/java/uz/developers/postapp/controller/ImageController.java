@@ -0,0 +1,85 @@
+package uz.developers.postapp.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import uz.developers.postapp.payload.ImageFormat;
+import uz.developers.postapp.payload.ImageRendition;
+import uz.developers.postapp.service.ImageRenditionService;
+import uz.developers.postapp.service.ImageStorageService;
+import uz.developers.postapp.utils.FileRangeSender;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * REST controller serving the stored post images and their renditions. An image is named
+ * after its content, so its URL always returns the same bytes and may be cached for good.
+ * A rendition is rendered again under the same name when images are reprocessed, so it is
+ * cached for a day and then revalidated by its ETag.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/images")
+public class ImageController {
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    private static final CacheControl RENDITION = CacheControl.maxAge(Duration.ofDays(1)).cachePublic();
+
+    private final ImageStorageService imageStorageService;
+
+    private final ImageRenditionService imageRenditionService;
+
+    /**
+     * Sends a stored image or rendition, or the byte range of it given in the Range header.
+     * No authentication is needed, so the URL can be used in an img tag.
+     *
+     * @param name       the name of the image, as in the image URL of a post
+     * @param webRequest the request and the response to write the image to
+     */
+    @Operation(summary = "Get Image", description = "Retrieve a stored post image, optionally a byte range of it.")
+    @ApiResponse(responseCode = "200", description = "Image retrieved.")
+    @ApiResponse(responseCode = "206", description = "Requested range of the image retrieved.")
+    @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match.")
+    @ApiResponse(responseCode = "404", description = "Image not found.")
+    @GetMapping("/{name}")
+    public void getImage(@PathVariable("name") String name, ServletWebRequest webRequest) throws IOException {
+        boolean rendition = ImageRendition.fromName(name) != null;
+        Path file = rendition
+                ? imageRenditionService.getRenditionFile(name)
+                : imageStorageService.getImageFile(name);
+        String fileName = file.getFileName().toString();
+        ImageFormat format = ImageFormat.fromExtension(StringUtils.getFilenameExtension(fileName));
+        String etag;
+        CacheControl cacheControl;
+        if (!fileName.equals(name)) {
+            // until a rendition is rendered its image is sent, which must not be cached as the rendition
+            etag = "\"" + fileName + "\"";
+            cacheControl = CacheControl.noCache();
+        } else if (rendition) {
+            etag = imageRenditionService.getRenditionETag(file);
+            cacheControl = RENDITION;
+        } else {
+            // strong: the name is the hash of the bytes
+            etag = "\"" + fileName + "\"";
+            cacheControl = IMMUTABLE;
+        }
+        HttpServletResponse response = webRequest.getResponse();
+        response.setHeader("Cache-Control", cacheControl.getHeaderValue());
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if (webRequest.checkNotModified(etag)) {
+            return;
+        }
+        FileRangeSender.send(file, etag, format.getContentType(), null, webRequest.getRequest(), response);
+    }
+}
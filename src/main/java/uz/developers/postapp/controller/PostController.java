@@ -6,14 +6,28 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 import uz.developers.postapp.entity.User;
 import uz.developers.postapp.exceptions.PostException;
+import uz.developers.postapp.payload.CursorPage;
 import uz.developers.postapp.payload.CustomApiResponse;
+import uz.developers.postapp.payload.PostBatchItemResult;
+import uz.developers.postapp.payload.PostBatchItemStatus;
 import uz.developers.postapp.payload.PostDto;
 import uz.developers.postapp.service.PostService;
+import uz.developers.postapp.service.ResponseBodyCacheService;
+import uz.developers.postapp.utils.ETags;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * REST controller for managing posts, offering endpoints for
@@ -26,6 +40,8 @@ public class PostController {
 
     private final PostService postService;
 
+    private final ResponseBodyCacheService responseBodyCacheService;
+
     /**
      * Retrieves all posts for a specific category.
      * If no posts are found, a ResourceNotFoundException is thrown.
@@ -35,12 +51,17 @@ public class PostController {
      */
     @Operation(summary = "Get Posts by Category with Pagination", description = "Retrieve a paginated list of posts by category ID.")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved the list of posts by category.")
+    @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match.")
     @GetMapping("/category/{categoryId}")
     public ResponseEntity<CustomApiResponse<Page<PostDto>>> getPostsByCategory(
             @PathVariable("categoryId") Long categoryId,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int size) {
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            WebRequest webRequest) {
         Page<PostDto> postDtos = postService.getPostsByCategory(categoryId, page, size);
+        if (webRequest.checkNotModified(ETags.weak(postDtos.getNumber(), postDtos.getSize(), postDtos.getTotalElements(), versionsOf(postDtos.getContent())))) {
+            return null;
+        }
         return new ResponseEntity<>(new CustomApiResponse<>(
                 "Successfully retrieved the list of posts by category.",
                 true,
@@ -56,12 +77,17 @@ public class PostController {
      */
     @Operation(summary = "Get Posts by User with Pagination", description = "Retrieve a paginated list of posts by user ID.")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved the list of posts by user.")
+    @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match.")
     @GetMapping("/user/{userId}")
     public ResponseEntity<CustomApiResponse<Page<PostDto>>> getPostsByUser(
             @PathVariable("userId") Long userId,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int size) {
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            WebRequest webRequest) {
         Page<PostDto> postDtos = postService.getPostsByUser(userId, page, size);
+        if (webRequest.checkNotModified(ETags.weak(postDtos.getNumber(), postDtos.getSize(), postDtos.getTotalElements(), versionsOf(postDtos.getContent())))) {
+            return null;
+        }
         return new ResponseEntity<>(new CustomApiResponse<>(
                 "Successfully retrieved the list of posts by user.",
                 true,
@@ -69,20 +95,27 @@ public class PostController {
     }
 
     /**
-     * Searches for posts by title or content using a keyword.
+     * Searches for posts by title or content using full-text search.
+     * Results are ordered by relevance, title matches ranking above content matches.
+     * The keyword may contain several words, "quoted phrases", OR and -excluded words.
      * If no matching posts are found, a ResourceNotFoundException is thrown.
      *
-     * @param keyword the keyword to search for
-     * @return a ResponseEntity with a CustomApiResponse containing the list of PostDto
+     * @param keyword the search query
+     * @return a ResponseEntity with a CustomApiResponse containing the slice of PostDto
      */
-    @Operation(summary = "Search Posts with Pagination", description = "Search posts by title or content with pagination.")
+    @Operation(summary = "Search Posts with Pagination", description = "Full-text search of posts by title or content, ranked by relevance.")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved the list of posts based on the search keyword.")
+    @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match.")
     @GetMapping("/search")
-    public ResponseEntity<CustomApiResponse<Page<PostDto>>> searchPosts(
+    public ResponseEntity<CustomApiResponse<Slice<PostDto>>> searchPosts(
             @RequestParam("keyword") String keyword,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int size) {
-        Page<PostDto> postDtos = postService.searchPosts(keyword, page, size);
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            WebRequest webRequest) {
+        Slice<PostDto> postDtos = postService.searchPosts(keyword, page, size);
+        if (webRequest.checkNotModified(ETags.weak(postDtos.getNumber(), postDtos.getSize(), postDtos.hasNext(), versionsOf(postDtos.getContent())))) {
+            return null;
+        }
         return new ResponseEntity<>(new CustomApiResponse<>(
                 "Successfully retrieved the list of posts based on search keyword.",
                 true,
@@ -98,17 +131,102 @@ public class PostController {
      */
     @Operation(summary = "Get all Posts with Pagination", description = "Retrieve a paginated list of all posts.")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved the list of posts.")
+    @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match.")
     @GetMapping
     public ResponseEntity<CustomApiResponse<Page<PostDto>>> getAllPosts(
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int size) {
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            WebRequest webRequest) {
         Page<PostDto> postDtos = postService.getAllPosts(page, size);
+        if (webRequest.checkNotModified(ETags.weak(postDtos.getNumber(), postDtos.getSize(), postDtos.getTotalElements(), versionsOf(postDtos.getContent())))) {
+            return null;
+        }
         return new ResponseEntity<>(new CustomApiResponse<>(
                 "Successfully retrieved the list of posts.",
                 true,
                 postDtos), HttpStatus.OK);
     }
 
+    /**
+     * Scroll through all posts, newest first, using a cursor instead of page numbers.
+     * The response cost does not grow with how deep the client has scrolled.
+     *
+     * @param cursor the nextCursor of the previous slice, omitted for the first slice
+     * @param size   the number of posts per slice (default is 10)
+     * @return a ResponseEntity containing a CustomApiResponse with the CursorPage of PostDto
+     */
+    @Operation(summary = "Scroll all Posts with a cursor", description = "Retrieve a slice of posts, newest first, continuing after the given cursor.")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved the slice of posts.")
+    @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match.")
+    @GetMapping("/scroll")
+    public ResponseEntity<CustomApiResponse<CursorPage<PostDto>>> scrollPosts(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            WebRequest webRequest) {
+        CursorPage<PostDto> postDtos = postService.scrollPosts(cursor, size);
+        if (webRequest.checkNotModified(ETags.weak(postDtos.getSize(), postDtos.getNextCursor(), versionsOf(postDtos.getContent())))) {
+            return null;
+        }
+        return new ResponseEntity<>(new CustomApiResponse<>(
+                "Successfully retrieved the slice of posts.",
+                true,
+                postDtos), HttpStatus.OK);
+    }
+
+    /**
+     * Scroll through the posts of a specific user, newest first, using a cursor.
+     *
+     * @param userId the ID of the user
+     * @param cursor the nextCursor of the previous slice, omitted for the first slice
+     * @param size   the number of posts per slice (default is 10)
+     * @return a ResponseEntity containing a CustomApiResponse with the CursorPage of PostDto
+     */
+    @Operation(summary = "Scroll Posts by User with a cursor", description = "Retrieve a slice of posts by user ID, newest first, continuing after the given cursor.")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved the slice of posts by user.")
+    @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match.")
+    @GetMapping("/user/{userId}/scroll")
+    public ResponseEntity<CustomApiResponse<CursorPage<PostDto>>> scrollPostsByUser(
+            @PathVariable("userId") Long userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            WebRequest webRequest) {
+        CursorPage<PostDto> postDtos = postService.scrollPostsByUser(userId, cursor, size);
+        if (webRequest.checkNotModified(ETags.weak(postDtos.getSize(), postDtos.getNextCursor(), versionsOf(postDtos.getContent())))) {
+            return null;
+        }
+        return new ResponseEntity<>(new CustomApiResponse<>(
+                "Successfully retrieved the slice of posts by user.",
+                true,
+                postDtos), HttpStatus.OK);
+    }
+
+    /**
+     * Scroll through the posts of a specific category, newest first, using a cursor.
+     *
+     * @param categoryId the ID of the category
+     * @param cursor     the nextCursor of the previous slice, omitted for the first slice
+     * @param size       the number of posts per slice (default is 10)
+     * @return a ResponseEntity containing a CustomApiResponse with the CursorPage of PostDto
+     */
+    @Operation(summary = "Scroll Posts by Category with a cursor", description = "Retrieve a slice of posts by category ID, newest first, continuing after the given cursor.")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved the slice of posts by category.")
+    @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match.")
+    @GetMapping("/category/{categoryId}/scroll")
+    public ResponseEntity<CustomApiResponse<CursorPage<PostDto>>> scrollPostsByCategory(
+            @PathVariable("categoryId") Long categoryId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "10") int size,
+            WebRequest webRequest) {
+        CursorPage<PostDto> postDtos = postService.scrollPostsByCategory(categoryId, cursor, size);
+        if (webRequest.checkNotModified(ETags.weak(postDtos.getSize(), postDtos.getNextCursor(), versionsOf(postDtos.getContent())))) {
+            return null;
+        }
+        return new ResponseEntity<>(new CustomApiResponse<>(
+                "Successfully retrieved the slice of posts by category.",
+                true,
+                postDtos), HttpStatus.OK);
+    }
+
     /**
      * Retrieve a post by their unique ID using the provided PostDto.
      *
@@ -119,14 +237,25 @@ public class PostController {
     @Operation(summary = "Get Post by ID", description = "Retrieve a post by their unique identifier.")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved the post.")
     @ApiResponse(responseCode = "404", description = "Post not found.")
+    @ApiResponse(responseCode = "304", description = "Not modified since the ETag given in If-None-Match.")
     @GetMapping("/{id}")
-    public ResponseEntity<CustomApiResponse<PostDto>> getPostById(@PathVariable Long id) {
+    public ResponseEntity<CustomApiResponse<PostDto>> getPostById(
+            @PathVariable Long id,
+            ServletWebRequest webRequest) throws IOException {
         PostDto postDto = postService.getPostById(id)
                 .orElseThrow(() -> new PostException("Post not found"));
-        return new ResponseEntity<>(new CustomApiResponse<>(
+        String etag = ETags.weak(versionOf(postDto));
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        CustomApiResponse<PostDto> response = new CustomApiResponse<>(
                 "Successfully retrieved the post.",
                 true,
-                postDto), HttpStatus.OK);
+                postDto);
+        if (responseBodyCacheService.sendGzipped(etag, response, webRequest)) {
+            return null;
+        }
+        return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
     /**
@@ -146,6 +275,26 @@ public class PostController {
                 savedPost), HttpStatus.CREATED);
     }
 
+    /**
+     * Creates many posts in one request. Each post is created or rejected on its own,
+     * the result of every post is returned in the order of the request.
+     *
+     * @param postDtos the DTOs of the posts to be saved
+     * @return a ResponseEntity containing a CustomApiResponse with the result of each post
+     */
+    @Operation(summary = "Create Posts in a batch", description = "Create up to app.posts.batch.max-size posts at once, with one duplicate check for the whole batch.")
+    @ApiResponse(responseCode = "200", description = "Batch processed, see the result of each post.")
+    @ApiResponse(responseCode = "400", description = "The batch is empty or too large.")
+    @PostMapping("/batch")
+    public ResponseEntity<CustomApiResponse<List<PostBatchItemResult>>> createPosts(@RequestBody List<PostDto> postDtos) {
+        List<PostBatchItemResult> results = postService.createPosts(postDtos);
+        long created = results.stream().filter(result -> result.getStatus() == PostBatchItemStatus.CREATED).count();
+        return new ResponseEntity<>(new CustomApiResponse<>(
+                created + " of " + results.size() + " posts created",
+                true,
+                results), HttpStatus.OK);
+    }
+
     /**
      * Update the details of an existing post using the provided PostDto.
      * Requires authentication and verifies user's authorization to update the post.
@@ -171,6 +320,32 @@ public class PostController {
                 updatedPost), HttpStatus.OK);
     }
 
+    /**
+     * Upload the image of a post, replacing its current image.
+     * Requires authentication and verifies user's authorization to update the post.
+     * Images are stored once per content and served by ImageController.
+     *
+     * @param id    the ID of the post
+     * @param image the JPEG, PNG, GIF or WebP image, as the multipart part "image"
+     * @return a ResponseEntity containing a CustomApiResponse with the updated PostDto
+     */
+    @Operation(summary = "Upload Post Image", description = "Upload a JPEG, PNG, GIF or WebP image and make it the image of the post.")
+    @ApiResponse(responseCode = "200", description = "Post image uploaded successfully")
+    @ApiResponse(responseCode = "400", description = "The image is empty or not in a supported format")
+    @ApiResponse(responseCode = "404", description = "Post not found")
+    @PostMapping(value = "/{id}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<CustomApiResponse<PostDto>> uploadPostImage(
+            @PathVariable Long id,
+            @RequestPart("image") MultipartFile image,
+            HttpServletRequest request) throws IOException {
+        User authenticatedUser = (User) request.getAttribute("authenticatedUser");
+        PostDto updatedPost = postService.updatePostImage(id, image, authenticatedUser.getId());
+        return new ResponseEntity<>(new CustomApiResponse<>(
+                "Post image uploaded successfully",
+                true,
+                updatedPost), HttpStatus.OK);
+    }
+
     /**
      * Delete a post by their ID.
      * Requires authentication and verifies user's authorization to delete the post.
@@ -193,4 +368,14 @@ public class PostController {
                 true,
                 null), HttpStatus.NO_CONTENT);
     }
+
+    // What the JSON of a post depends on: the version covers the post's own columns,
+    // the comment count, category title and user name change without it
+    private static List<Object> versionOf(PostDto post) {
+        return Arrays.asList(post.getId(), post.getVersion(), post.getCommentCount(), post.getCategoryTitle(), post.getUserName());
+    }
+
+    private static List<List<Object>> versionsOf(List<PostDto> posts) {
+        return posts.stream().map(PostController::versionOf).toList();
+    }
 }
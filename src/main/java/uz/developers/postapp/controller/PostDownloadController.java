@@ -1,14 +1,14 @@
 package uz.developers.postapp.controller;
 
-import com.itextpdf.text.DocumentException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import uz.developers.postapp.payload.CustomApiResponse;
+import uz.developers.postapp.payload.PostExportFilter;
 import uz.developers.postapp.service.PostDownloadService;
 
 import java.io.IOException;
@@ -28,56 +28,136 @@ public class PostDownloadController {
 
     /**
      * Download a PDF file.
+     * The document is cached until the post changes; send its ETag in If-None-Match to get a 304 instead.
      *
      * @param postId   the ID of the post for the report
+     * @param request  carrying the conditional and Range headers
      * @param response to write the PDF file to
-     * @return ResponseEntity with the operation status
-     * @throws IOException if an error occurs during PDF generation
      */
     @GetMapping("/pdf/{postId}")
-    public ResponseEntity<CustomApiResponse<Void>> downloadPDF(
+    public void downloadPDF(
             @PathVariable Long postId,
-            HttpServletResponse response) throws IOException, DocumentException {
-        postDownloadService.generatePDF(postId, response);
-        return ResponseEntity.ok(new CustomApiResponse<>(
-                "PDF file generated successfully.",
-                true,
-                null));
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        postDownloadService.generatePDF(postId, request, response);
     }
 
     /**
      * Download an Excel file.
+     * The document is cached until the post changes; send its ETag in If-None-Match to get a 304 instead.
      *
      * @param postId   the ID of the post for the report
+     * @param request  carrying the conditional and Range headers
      * @param response to write the Excel file to
-     * @return ResponseEntity with the operation status
      */
     @GetMapping("/excel/{postId}")
-    public ResponseEntity<CustomApiResponse<Void>> downloadExcel(
+    public void downloadExcel(
             @PathVariable Long postId,
+            HttpServletRequest request,
             HttpServletResponse response) throws IOException {
-        postDownloadService.generateExcel(postId, response);
-        return ResponseEntity.ok(new CustomApiResponse<>(
-                "Excel file generated successfully.",
-                true,
-                null));
+        postDownloadService.generateExcel(postId, request, response);
     }
 
     /**
      * Download a CSV file.
+     * The document is cached until the post changes; send its ETag in If-None-Match to get a 304 instead.
      *
      * @param postId   the ID of the post for the report
+     * @param request  carrying the conditional and Range headers
      * @param response to write the CSV file to
-     * @return ResponseEntity with the operation status
      */
     @GetMapping("/csv/{postId}")
-    public ResponseEntity<CustomApiResponse<Void>> downloadCSV(
+    public void downloadCSV(
             @PathVariable Long postId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        postDownloadService.generateCSV(postId, request, response);
+    }
+
+    /**
+     * Download all posts as a CSV file.
+     * Rows are streamed from the database into the response, so memory use does not depend on the row count.
+     *
+     * @param response to write the CSV file to
+     */
+    @GetMapping("/csv")
+    public void downloadAllCSV(HttpServletResponse response) throws IOException {
+        postDownloadService.exportCSV(PostExportFilter.all(), response);
+    }
+
+    /**
+     * Download all posts of a category as a streamed CSV file.
+     *
+     * @param categoryId the ID of the category
+     * @param response   to write the CSV file to
+     */
+    @GetMapping("/csv/category/{categoryId}")
+    public void downloadCategoryCSV(
+            @PathVariable Long categoryId,
+            HttpServletResponse response) throws IOException {
+        postDownloadService.exportCSV(PostExportFilter.byCategory(categoryId), response);
+    }
+
+    /**
+     * Download all posts of a user as a streamed CSV file.
+     *
+     * @param userId   the ID of the user
+     * @param response to write the CSV file to
+     */
+    @GetMapping("/csv/user/{userId}")
+    public void downloadUserCSV(
+            @PathVariable Long userId,
+            HttpServletResponse response) throws IOException {
+        postDownloadService.exportCSV(PostExportFilter.byUser(userId), response);
+    }
+
+    /**
+     * Download all posts matching a full-text search as a streamed CSV file.
+     *
+     * @param keyword  the search query
+     * @param response to write the CSV file to
+     */
+    @GetMapping("/csv/search")
+    public void downloadSearchCSV(
+            @RequestParam("keyword") String keyword,
+            HttpServletResponse response) throws IOException {
+        postDownloadService.exportCSV(PostExportFilter.byKeyword(keyword), response);
+    }
+
+    /**
+     * Download all posts as an Excel file.
+     * The workbook is streamed: only a small window of rows is kept in memory, the rest is buffered on disk.
+     *
+     * @param response to write the Excel file to
+     */
+    @GetMapping("/excel")
+    public void downloadAllExcel(HttpServletResponse response) throws IOException {
+        postDownloadService.exportExcel(PostExportFilter.all(), response);
+    }
+
+    /**
+     * Download all posts of a category as a streamed Excel file.
+     *
+     * @param categoryId the ID of the category
+     * @param response   to write the Excel file to
+     */
+    @GetMapping("/excel/category/{categoryId}")
+    public void downloadCategoryExcel(
+            @PathVariable Long categoryId,
+            HttpServletResponse response) throws IOException {
+        postDownloadService.exportExcel(PostExportFilter.byCategory(categoryId), response);
+    }
+
+    /**
+     * Download all posts of a user as a streamed Excel file.
+     *
+     * @param userId   the ID of the user
+     * @param response to write the Excel file to
+     */
+    @GetMapping("/excel/user/{userId}")
+    public void downloadUserExcel(
+            @PathVariable Long userId,
             HttpServletResponse response) throws IOException {
-        postDownloadService.generateCSV(postId, response);
-        return ResponseEntity.ok(new CustomApiResponse<>(
-                "CSV file generated successfully.",
-                true,
-                null));
+        postDownloadService.exportExcel(PostExportFilter.byUser(userId), response);
     }
 }
@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.*;
 import uz.developers.postapp.exceptions.UserException;
 import uz.developers.postapp.payload.CustomApiResponse;
 import uz.developers.postapp.payload.LoginRequest;
+import uz.developers.postapp.payload.LoginResponse;
 import uz.developers.postapp.payload.UserDto;
 import uz.developers.postapp.service.UserService;
 
@@ -69,21 +70,24 @@ public class UserController {
     }
 
     /**
-     * Authenticate a user with the provided email and password.
+     * Authenticate a user with the provided email and password and issue a bearer token
+     * for the following requests.
      *
      * @param loginRequest the login request containing email and password
-     * @return a ResponseEntity with a CustomApiResponse containing the UserDto on successful login
+     * @return a ResponseEntity with a CustomApiResponse containing the UserDto and the token on successful login
      */
-    @Operation(summary = "User Login", description = "Authenticate a user using their email and password.")
+    @Operation(summary = "User Login", description = "Authenticate a user using their email and password. " +
+            "The returned token authenticates later requests as \"Authorization: Bearer <token>\" until it expires " +
+            "or the user is updated.")
     @ApiResponse(responseCode = "200", description = "Login successful.")
     @ApiResponse(responseCode = "401", description = "Invalid credentials or unauthorized access.")
     @PostMapping("/login")
-    public ResponseEntity<CustomApiResponse<UserDto>> loginUser(@RequestBody LoginRequest loginRequest) {
-        UserDto userDto = userService.loginUser(loginRequest.getEmail(), loginRequest.getPassword());
+    public ResponseEntity<CustomApiResponse<LoginResponse>> loginUser(@RequestBody LoginRequest loginRequest) {
+        LoginResponse loginResponse = userService.loginUser(loginRequest.getEmail(), loginRequest.getPassword());
         return new ResponseEntity<>(new CustomApiResponse<>(
                 "Login successful",
                 true,
-                userDto), HttpStatus.OK);
+                loginResponse), HttpStatus.OK);
     }
 
 
@@ -5,6 +5,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 @Data
 @AllArgsConstructor
@@ -30,4 +31,11 @@ public class Category {
             example = "Posts related to technological advancements, gadgets, and innovations")
     private String description;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    @Schema(description = "Version of the category, incremented on every update",
+            example = "1")
+    private long version;
+
 }
@@ -5,12 +5,17 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import uz.developers.postapp.utils.ContentFingerprint;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "comment")
+@Table(name = "comment", indexes = {
+        // comments of a post in id order, see CommentRepository
+        @Index(name = "idx_comment_post_id_id", columnList = "post_id, id")
+})
 @Schema(description = "Comment entity represents a user's comment on a specific blog post.")
 public class Comment {
 
@@ -25,16 +30,33 @@ public class Comment {
             example = "This is a great post! I learned a lot from it.")
     private String content;
 
-    @ManyToOne
+    // Null only for comments older than the column whose content an older comment already had
+    @Column(name = "content_fingerprint", length = ContentFingerprint.LENGTH)
+    @Schema(hidden = true)
+    private String contentFingerprint;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    @Schema(description = "Version of the comment, incremented on every update",
+            example = "1")
+    private long version;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @Schema(description = "User who made the comment.",
             example = "User ID: 3")
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "post_id", nullable = false)
     @Schema(description = "Blog post that this comment is related to.",
             example = "Post ID: 5")
     private Post post;
 
+    @PrePersist
+    @PreUpdate
+    void computeContentFingerprint() {
+        contentFingerprint = ContentFingerprint.of(content);
+    }
 }
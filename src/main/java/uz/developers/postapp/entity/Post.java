@@ -5,8 +5,10 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
+import uz.developers.postapp.utils.ContentFingerprint;
 
 import java.sql.Date;
 
@@ -14,12 +16,21 @@ import java.sql.Date;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_posts_date_id", columnList = "date DESC, id DESC"),
+        @Index(name = "idx_posts_user_date_id", columnList = "user_id, date DESC, id DESC"),
+        @Index(name = "idx_posts_category_date_id", columnList = "category_id, date DESC, id DESC"),
+        // duplicate checks, see DuplicateCheckService; the unique content_fingerprint index is in schema.sql
+        @Index(name = "idx_posts_title", columnList = "title")
+})
 @Schema(description = "Post entity represents a blog post created by a user.")
 public class Post {
 
+    // Ids are taken from posts_seq 50 at a time (pooled-lo, see application.properties), so
+    // inserts need no round trip for the id and can be sent as JDBC batches.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "posts_seq")
+    @SequenceGenerator(name = "posts_seq", sequenceName = "posts_seq", allocationSize = 50)
     @Schema(description = "Unique ID of the post",
             example = "1")
     private Long id;
@@ -37,6 +48,11 @@ public class Post {
     private String content;
 
 
+    // Null only for posts older than the column whose content an older post already had
+    @Column(name = "content_fingerprint", length = ContentFingerprint.LENGTH)
+    @Schema(hidden = true)
+    private String contentFingerprint;
+
     @Column(name = "image")
     @Schema(description = "Image associated with the blog post",
             example = "http://example.com/image.jpg")
@@ -48,17 +64,39 @@ public class Post {
             example = "2024-01-01")
     private Date date;
 
-    @ManyToOne
+    // Also the basis of the ETags: of two concurrent updates the second one fails instead of overwriting
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    @Schema(description = "Version of the post, incremented on every update",
+            example = "3")
+    private long version;
+
+    // Maintained by CommentCountService only: new posts start at the column default,
+    // updates through the entity never overwrite it
+    @ColumnDefault("0")
+    @Column(name = "comment_count", nullable = false, insertable = false, updatable = false)
+    @Schema(description = "Number of comments on the post",
+            example = "12")
+    private long commentCount;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     @OnDelete(action = OnDeleteAction.CASCADE)
     @Schema(description = "Category to which the post belongs",
             example = "Category ID: 1")
     private Category category;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @OnDelete(action = OnDeleteAction.CASCADE)
     @Schema(description = "User who created the post",
             example = "User ID: 3")
     private User user;
+
+    @PrePersist
+    @PreUpdate
+    void computeContentFingerprint() {
+        contentFingerprint = ContentFingerprint.of(content);
+    }
 }
@@ -5,6 +5,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 @Data
 @AllArgsConstructor
@@ -37,4 +38,11 @@ public class User {
             example = "password123",
             required = true)
     private String password;
-}
\ No newline at end of file
+
+    // Bearer tokens carry the version they were issued with and are rejected once it is
+    // bumped, which happens when the user is updated (see TokenService)
+    @ColumnDefault("0")
+    @Column(name = "token_version", nullable = false)
+    @Schema(hidden = true)
+    private int tokenVersion;
+}
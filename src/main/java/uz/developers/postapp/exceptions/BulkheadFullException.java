@@ -0,0 +1,19 @@
+package uz.developers.postapp.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+
+/**
+ * Exception thrown when a request waited too long for a free slot in its bulkhead.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class BulkheadFullException extends RuntimeException{
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+
+
+
+}
@@ -0,0 +1,19 @@
+package uz.developers.postapp.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+
+/**
+ * Exception thrown when the file of an export job is not available yet.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class ExportException extends RuntimeException{
+
+    public ExportException(String message) {
+        super(message);
+    }
+
+
+
+}
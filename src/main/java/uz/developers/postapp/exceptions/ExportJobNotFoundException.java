@@ -0,0 +1,17 @@
+package uz.developers.postapp.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+
+/**
+ * Exception thrown when no export job has the requested id, or its file is gone.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ExportJobNotFoundException extends RuntimeException{
+
+    public ExportJobNotFoundException(String message) {
+        super(message);
+    }
+
+}
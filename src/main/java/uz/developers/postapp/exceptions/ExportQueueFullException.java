@@ -0,0 +1,19 @@
+package uz.developers.postapp.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+
+/**
+ * Exception thrown when all export workers are busy and the job queue is full.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ExportQueueFullException extends RuntimeException{
+
+    public ExportQueueFullException(String message) {
+        super(message);
+    }
+
+
+
+}
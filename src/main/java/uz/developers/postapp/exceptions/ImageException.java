@@ -0,0 +1,17 @@
+package uz.developers.postapp.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+
+/**
+ * Exception thrown when an uploaded image is empty or not in a supported format.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class ImageException extends RuntimeException{
+
+    public ImageException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,17 @@
+package uz.developers.postapp.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+
+/**
+ * Exception thrown when no stored image has the requested name.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ImageNotFoundException extends RuntimeException{
+
+    public ImageNotFoundException(String message) {
+        super(message);
+    }
+
+}
@@ -12,7 +12,7 @@ public class ResourceNotFoundException extends RuntimeException{
     long fieldValue;
 
     public ResourceNotFoundException(String resourceName, String fieldName, long fieldValue) {
-        super(String.format("%s not found with %s : %l",resourceName,fieldName,fieldValue));
+        super(String.format("%s not found with %s : %d",resourceName,fieldName,fieldValue));
         this.resourceName = resourceName;
         this.fieldName = fieldName;
         this.fieldValue = fieldValue;
@@ -2,8 +2,10 @@ package uz.developers.postapp.exceptions.handler;
 
 
 import com.itextpdf.text.DocumentException;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import uz.developers.postapp.exceptions.ResourceNotFoundException;
@@ -24,7 +26,11 @@ public class GlobalExceptionHandler {
     }
 
     @ExceptionHandler(IOException.class)
-    public ResponseEntity<CustomApiResponse> handleIOException(IOException ex) {
+    public ResponseEntity<CustomApiResponse> handleIOException(IOException ex, HttpServletResponse response) {
+        // the client went away in the middle of a download or a comment stream, nothing can be sent
+        if (response.isCommitted()) {
+            return null;
+        }
         String message = "I/O xatolik yuz berdi: " + ex.getMessage();
         CustomApiResponse apiResponse = new CustomApiResponse(
                 message,
@@ -43,6 +49,16 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(apiResponse, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    // an entity was updated by another request between reading and writing it (@Version)
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<CustomApiResponse> handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException ex) {
+        CustomApiResponse apiResponse = new CustomApiResponse(
+                "The resource was changed by another request, reload it and try again",
+                false,
+                null);
+        return new ResponseEntity<>(apiResponse, HttpStatus.CONFLICT);
+    }
+
 
 
 
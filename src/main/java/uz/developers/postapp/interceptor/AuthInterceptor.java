@@ -3,13 +3,21 @@ package uz.developers.postapp.interceptor;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
+import uz.developers.postapp.config.CacheConfig;
 import uz.developers.postapp.entity.User;
 import uz.developers.postapp.exceptions.UserException;
 import uz.developers.postapp.repository.UserRepository;
+import uz.developers.postapp.service.TokenService;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
+import java.util.HexFormat;
 import java.util.Optional;
 
 @Component
@@ -18,6 +26,10 @@ public class AuthInterceptor implements HandlerInterceptor {
 
     private final UserRepository userRepository;
 
+    private final CacheManager cacheManager;
+
+    private final TokenService tokenService;
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
         String requestURI = request.getRequestURI();
@@ -25,10 +37,33 @@ public class AuthInterceptor implements HandlerInterceptor {
             return true;
         }
         String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            // verified without a query; controllers only need the id of the authenticated user
+            User user = new User();
+            user.setId(tokenService.verifyToken(authHeader.substring(7).trim()));
+            request.setAttribute("authenticatedUser", user);
+            return true;
+        }
         if (authHeader == null || !authHeader.startsWith("Basic ")) {
             throw new UserException("Authentication headers are missing or invalid");
         }
 
+        // Only verified headers are cached, and only by digest, so the raw credentials are never kept as keys.
+        // UserServiceImpl clears the cache whenever a user is updated or deleted. A verification that read
+        // the user before such a change committed may still cache it afterwards; the change revoked the
+        // user's token version, which the cached user still carries, so it is verified again.
+        Cache credentialsCache = cacheManager.getCache(CacheConfig.CREDENTIALS_CACHE);
+        String cacheKey = digest(authHeader);
+        User user = credentialsCache.get(cacheKey, User.class);
+        if (user == null || tokenService.isRevoked(user.getId(), user.getTokenVersion())) {
+            user = verify(authHeader);
+            credentialsCache.put(cacheKey, user);
+        }
+        request.setAttribute("authenticatedUser", user);
+        return true;
+    }
+
+    private User verify(String authHeader) {
         String base64Credentials = authHeader.substring(6);
         String credentials = new String(Base64.getDecoder().decode(base64Credentials));
         String[] values = credentials.split(":", 2);
@@ -42,8 +77,16 @@ public class AuthInterceptor implements HandlerInterceptor {
         if (userOptional.isEmpty() || !userOptional.get().getPassword().equals(password)) {
             throw new UserException("Invalid username or password");
         }
-        request.setAttribute("authenticatedUser", userOptional.get());
-        return true;
+        return userOptional.get();
+    }
+
+    private static String digest(String authHeader) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(authHeader.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
 }
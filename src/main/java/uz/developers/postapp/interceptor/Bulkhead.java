@@ -0,0 +1,67 @@
+package uz.developers.postapp.interceptor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import uz.developers.postapp.exceptions.BulkheadFullException;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how many requests of one group hold a JDBC connection at the same time. Waiting
+ * callers queue in arrival order for at most maxWait, then get a BulkheadFullException.
+ * <p>
+ * Meters, tagged with the group: bulkhead.wait (time spent queueing),
+ * bulkhead.rejected and bulkhead.available.
+ */
+public class Bulkhead {
+
+    private final Semaphore permits;
+
+    private final long maxWaitNanos;
+
+    private final Timer waitTimer;
+
+    private final Counter rejectedCounter;
+
+    public Bulkhead(String group, int maxConcurrent, Duration maxWait, MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.waitTimer = Timer.builder("bulkhead.wait")
+                .description("Time requests waited for a bulkhead permit")
+                .tag("group", group)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("bulkhead.rejected")
+                .description("Requests rejected after waiting too long for a bulkhead permit")
+                .tag("group", group)
+                .register(meterRegistry);
+        Gauge.builder("bulkhead.available", permits, Semaphore::availablePermits)
+                .description("Free bulkhead permits")
+                .tag("group", group)
+                .register(meterRegistry);
+    }
+
+    public void acquire() {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            rejectedCounter.increment();
+            throw new BulkheadFullException("Server is busy, please try again later");
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+}
@@ -0,0 +1,142 @@
+package uz.developers.postapp.interceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * With virtual threads Tomcat no longer caps concurrent requests at its thread count,
+ * so every request would go on to wait for a JDBC connection. The bulkheads cap the
+ * connections each endpoint group holds below the Hikari pool size instead. A request
+ * takes a permit when it gets its first connection and gives it back when it closes
+ * its last one, so writing the response to a slow client holds no permit.
+ * <p>
+ * Connections taken outside a request, by the export job workers and scheduled tasks,
+ * take no permit; the pool size leaves room for them.
+ */
+public class BulkheadDataSource extends DelegatingDataSource {
+
+    private static final String CONNECTIONS_ATTRIBUTE = BulkheadDataSource.class.getName() + ".connections";
+
+    private final Bulkhead reads;
+
+    private final Bulkhead writes;
+
+    private final Bulkhead exports;
+
+    public BulkheadDataSource(DataSource dataSource, Bulkhead reads, Bulkhead writes, Bulkhead exports) {
+        super(dataSource);
+        this.reads = reads;
+        this.writes = writes;
+        this.exports = exports;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        HttpServletRequest request = currentRequest();
+        if (request == null) {
+            return super.getConnection();
+        }
+        Bulkhead bulkhead = acquire(request);
+        try {
+            return withPermit(super.getConnection(), request, bulkhead);
+        } catch (SQLException | RuntimeException e) {
+            release(request, bulkhead);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        HttpServletRequest request = currentRequest();
+        if (request == null) {
+            return super.getConnection(username, password);
+        }
+        Bulkhead bulkhead = acquire(request);
+        try {
+            return withPermit(super.getConnection(username, password), request, bulkhead);
+        } catch (SQLException | RuntimeException e) {
+            release(request, bulkhead);
+            throw e;
+        }
+    }
+
+    // A request that already holds a connection holds the permit too: a second connection
+    // must not wait for a permit, or requests holding all of them would wait on each other
+    private Bulkhead acquire(HttpServletRequest request) {
+        Bulkhead bulkhead = bulkheadFor(request);
+        Integer connections = (Integer) request.getAttribute(CONNECTIONS_ATTRIBUTE);
+        if (connections == null) {
+            bulkhead.acquire();
+            connections = 0;
+        }
+        request.setAttribute(CONNECTIONS_ATTRIBUTE, connections + 1);
+        return bulkhead;
+    }
+
+    private void release(HttpServletRequest request, Bulkhead bulkhead) {
+        Integer connections = (Integer) request.getAttribute(CONNECTIONS_ATTRIBUTE);
+        if (connections == null) {
+            return;
+        }
+        if (connections > 1) {
+            request.setAttribute(CONNECTIONS_ATTRIBUTE, connections - 1);
+        } else {
+            request.removeAttribute(CONNECTIONS_ATTRIBUTE);
+            bulkhead.release();
+        }
+    }
+
+    private Bulkhead bulkheadFor(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if (uri.startsWith("/api/post/downloads") || uri.startsWith("/api/post/exports")) {
+            return exports;
+        }
+        String method = request.getMethod();
+        if ("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)) {
+            return reads;
+        }
+        return writes;
+    }
+
+    // gives the permit back on the first close, later ones are passed on to the pool only
+    private Connection withPermit(Connection connection, HttpServletRequest request, Bulkhead bulkhead) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("equals".equals(method.getName())) {
+                        return proxy == args[0];
+                    }
+                    if ("hashCode".equals(method.getName())) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if ("close".equals(method.getName()) && closed.compareAndSet(false, true)) {
+                        try {
+                            connection.close();
+                        } finally {
+                            release(request, bulkhead);
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    private static HttpServletRequest currentRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                ? attributes.getRequest()
+                : null;
+    }
+}
@@ -0,0 +1,69 @@
+package uz.developers.postapp.interceptor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public method of the service implementations called through their proxy:
+ * service.invocations, tagged with the service, the operation (method name), the outcome
+ * and, for errors, the exception. Histogram buckets for the percentiles are configured
+ * in application.properties, like those of the repository and HTTP timers.
+ * <p>
+ * It is the outermost advice, so calls answered from a cache and the time spent in
+ * transaction handling are included.
+ * <p>
+ * A successful call costs a map lookup and a timer update; the timers for failures are
+ * looked up in the registry, as each exception type gets its own.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+
+    private static final String METRIC = "service.invocations";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Method, Timer> successTimers = new ConcurrentHashMap<>();
+
+    @Around("execution(public * uz.developers.postapp.service.impl.*ServiceImpl.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            timer(joinPoint, "error", e.getClass().getSimpleName())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        successTimers.computeIfAbsent(method, m -> timer(joinPoint, "success", "none"))
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private Timer timer(ProceedingJoinPoint joinPoint, String outcome, String exception) {
+        return Timer.builder(METRIC)
+                .description("Time spent in service methods")
+                .tag("service", joinPoint.getTarget().getClass().getSimpleName())
+                .tag("operation", joinPoint.getSignature().getName())
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .register(meterRegistry);
+    }
+}
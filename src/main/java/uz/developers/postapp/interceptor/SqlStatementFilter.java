@@ -0,0 +1,187 @@
+package uz.developers.postapp.interceptor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the SQL statements of each request and the time spent executing them. The counts
+ * are sent back in the X-SQL-Statements and Server-Timing headers and recorded as
+ * http.sql.statements and http.sql.time, tagged with the method and the URI pattern.
+ * A request issuing more than app.sql.statement-budget statements is logged with the
+ * statement it repeated most, which is usually the N+1 query.
+ * <p>
+ * A sample of the requests (app.sql.log.sample-rate) gets every statement logged by
+ * {@link SqlStatementListener}.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlStatementFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+
+    private static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final MeterRegistry meterRegistry;
+
+    private final int statementBudget;
+
+    private final double sampleRate;
+
+    public SqlStatementFilter(
+            MeterRegistry meterRegistry,
+            @Value("${app.sql.statement-budget:20}") int statementBudget,
+            @Value("${app.sql.log.sample-rate:0.01}") double sampleRate) {
+        this.meterRegistry = meterRegistry;
+        this.statementBudget = statementBudget;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementStats stats = SqlStatementStats.start(ThreadLocalRandom.current().nextDouble() < sampleRate);
+        try {
+            filterChain.doFilter(request, new StatsHeaderResponse(response, stats));
+        } finally {
+            SqlStatementStats.end();
+            writeHeaders(response, stats);
+            record(request, stats);
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatementStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        DistributionSummary.builder("http.sql.statements")
+                .description("SQL statements issued per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        Timer.builder("http.sql.time")
+                .description("Time per request spent executing SQL statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getNanos(), TimeUnit.NANOSECONDS);
+        if (stats.getStatements() > statementBudget) {
+            Map.Entry<String, Integer> mostRepeated = stats.mostRepeated();
+            log.warn("SQL statement budget exceeded method={} uri={} statements={} budget={} sqlMs={} "
+                            + "mostRepeatedCount={} mostRepeatedSql=\"{}\"",
+                    request.getMethod(), request.getRequestURI(), stats.getStatements(), statementBudget,
+                    stats.getNanos() / 1_000_000.0, mostRepeated.getValue(), mostRepeated.getKey());
+        }
+    }
+
+    // Headers can only be set until the response is committed
+    private static void writeHeaders(HttpServletResponse response, SqlStatementStats stats) {
+        if (response.isCommitted()) {
+            return;
+        }
+        response.setHeader(STATEMENTS_HEADER, Integer.toString(stats.getStatements()));
+        response.setHeader(SERVER_TIMING_HEADER, String.format(Locale.ROOT, "sql;dur=%.3f;desc=\"%d statements\"",
+                stats.getNanos() / 1_000_000.0, stats.getStatements()));
+    }
+
+    // The response is committed as soon as its buffer fills up or is flushed, which message
+    // converters do once the body is written. The headers are therefore refreshed before every
+    // write; statements issued after the commit, while a long body streams, are only in the
+    // metrics and the log.
+    private static class StatsHeaderResponse extends HttpServletResponseWrapper {
+
+        private final SqlStatementStats stats;
+
+        private ServletOutputStream outputStream;
+
+        StatsHeaderResponse(HttpServletResponse response, SqlStatementStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new HeaderWritingOutputStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders((HttpServletResponse) getResponse(), stats);
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders((HttpServletResponse) getResponse(), stats);
+            super.flushBuffer();
+        }
+
+        private class HeaderWritingOutputStream extends ServletOutputStream {
+
+            private final ServletOutputStream delegate;
+
+            HeaderWritingOutputStream(ServletOutputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                writeHeaders((HttpServletResponse) getResponse(), stats);
+                delegate.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                writeHeaders((HttpServletResponse) getResponse(), stats);
+                delegate.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                writeHeaders((HttpServletResponse) getResponse(), stats);
+                delegate.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                writeHeaders((HttpServletResponse) getResponse(), stats);
+                delegate.close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                delegate.setWriteListener(writeListener);
+            }
+        }
+    }
+}
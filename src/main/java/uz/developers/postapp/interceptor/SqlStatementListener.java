@@ -0,0 +1,49 @@
+package uz.developers.postapp.interceptor;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Called by the DataSource proxy (see DataSourceProxyConfig) around every statement execution;
+ * a JDBC batch is one execution. Counts the statement for the current request and logs it, at
+ * INFO when the request was sampled and at WARN when it was slow, under the
+ * uz.developers.postapp.sql logger.
+ */
+@Slf4j(topic = "uz.developers.postapp.sql")
+public class SqlStatementListener implements QueryExecutionListener {
+
+    private static final String START_NANOS = "startNanos";
+
+    private final long slowThresholdNanos;
+
+    public SqlStatementListener(Duration slowThreshold) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = System.nanoTime() - execInfo.getCustomValue(START_NANOS, Long.class);
+        String sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+        SqlStatementStats stats = SqlStatementStats.current();
+        if (stats != null) {
+            stats.record(sql, elapsed);
+        }
+        if (elapsed >= slowThresholdNanos) {
+            log.warn("Slow SQL statement elapsedMs={} batchSize={} success={} sql=\"{}\"",
+                    elapsed / 1_000_000.0, execInfo.getBatchSize(), execInfo.isSuccess(), sql);
+        } else if (stats != null && stats.isSampled()) {
+            log.info("SQL statement elapsedMs={} batchSize={} success={} sql=\"{}\"",
+                    elapsed / 1_000_000.0, execInfo.getBatchSize(), execInfo.isSuccess(), sql);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package uz.developers.postapp.interceptor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The SQL statements issued by the current request, counted by {@link SqlStatementListener}.
+ * A request runs its JDBC calls on its own thread, so the stats are kept in a thread local
+ * and need no synchronization. Statements outside a request (scheduled tasks, export job
+ * workers) are not counted.
+ */
+public class SqlStatementStats {
+
+    private static final ThreadLocal<SqlStatementStats> CURRENT = new ThreadLocal<>();
+
+    // executions per statement text, to name the statement behind an N+1
+    private static final int MAX_DISTINCT_STATEMENTS = 100;
+
+    private final boolean sampled;
+
+    private final Map<String, Integer> executions = new HashMap<>();
+
+    private int statements;
+
+    private long nanos;
+
+    private SqlStatementStats(boolean sampled) {
+        this.sampled = sampled;
+    }
+
+    public static SqlStatementStats start(boolean sampled) {
+        SqlStatementStats stats = new SqlStatementStats(sampled);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    // null outside a request
+    public static SqlStatementStats current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public void record(String sql, long elapsedNanos) {
+        statements++;
+        nanos += elapsedNanos;
+        if (executions.size() < MAX_DISTINCT_STATEMENTS || executions.containsKey(sql)) {
+            executions.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    // whether every statement of the request is logged
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public Map.Entry<String, Integer> mostRepeated() {
+        return executions.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElse(Map.entry("", 0));
+    }
+}
@@ -0,0 +1,17 @@
+package uz.developers.postapp.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import uz.developers.postapp.entity.Category;
+import uz.developers.postapp.payload.CategoryDto;
+
+@Mapper(componentModel = "spring")
+public interface CategoryMapper {
+
+    // Entity ---> DTO
+    CategoryDto toDto(Category category);
+
+    // DTO ---> Entity
+    @Mapping(target = "version", ignore = true)
+    Category toEntity(CategoryDto categoryDto);
+}
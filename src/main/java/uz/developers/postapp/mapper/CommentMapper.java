@@ -0,0 +1,22 @@
+package uz.developers.postapp.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import uz.developers.postapp.entity.Comment;
+import uz.developers.postapp.payload.CommentDto;
+
+@Mapper(componentModel = "spring")
+public interface CommentMapper extends EntityReferences {
+
+    // Entity ---> DTO
+    @Mapping(target = "userId", source = "user.id")
+    @Mapping(target = "postId", source = "post.id")
+    CommentDto toDto(Comment comment);
+
+    // DTO ---> Entity
+    @Mapping(target = "user", source = "userId")
+    @Mapping(target = "post", source = "postId")
+    @Mapping(target = "contentFingerprint", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    Comment toEntity(CommentDto commentDto);
+}
@@ -0,0 +1,39 @@
+package uz.developers.postapp.mapper;
+
+import uz.developers.postapp.entity.Category;
+import uz.developers.postapp.entity.Post;
+import uz.developers.postapp.entity.User;
+
+/**
+ * Turns the ids carried by DTOs into entity references for the generated mappers.
+ * Only the id is set, which is all Hibernate needs to write the foreign key.
+ */
+public interface EntityReferences {
+
+    default Category categoryReference(Long categoryId) {
+        if (categoryId == null) {
+            return null;
+        }
+        Category category = new Category();
+        category.setId(categoryId);
+        return category;
+    }
+
+    default User userReference(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        User user = new User();
+        user.setId(userId);
+        return user;
+    }
+
+    default Post postReference(Long postId) {
+        if (postId == null) {
+            return null;
+        }
+        Post post = new Post();
+        post.setId(postId);
+        return post;
+    }
+}
@@ -0,0 +1,49 @@
+package uz.developers.postapp.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.Named;
+import uz.developers.postapp.entity.Post;
+import uz.developers.postapp.payload.ImageRendition;
+import uz.developers.postapp.payload.PostDto;
+import uz.developers.postapp.service.ImageStorageService;
+
+@Mapper(componentModel = "spring")
+public interface PostMapper extends EntityReferences {
+
+    // Entity ---> DTO
+    @Mapping(target = "categoryId", source = "category.id")
+    @Mapping(target = "userId", source = "user.id")
+    @Mapping(target = "categoryTitle", source = "category.title")
+    @Mapping(target = "userName", source = "user.name")
+    @Mapping(target = "imageThumbnail", source = "image", qualifiedByName = "thumbnailUrl")
+    @Mapping(target = "imageMedium", source = "image", qualifiedByName = "mediumUrl")
+    PostDto toDto(Post post);
+
+    // DTO ---> Entity
+    @Mapping(target = "category", source = "categoryId")
+    @Mapping(target = "user", source = "userId")
+    @Mapping(target = "contentFingerprint", ignore = true)
+    @Mapping(target = "commentCount", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    Post toEntity(PostDto postDto);
+
+    @Named("thumbnailUrl")
+    default String thumbnailUrl(String image) {
+        return renditionUrl(image, ImageRendition.THUMBNAIL);
+    }
+
+    @Named("mediumUrl")
+    default String mediumUrl(String image) {
+        return renditionUrl(image, ImageRendition.MEDIUM);
+    }
+
+    // Only uploaded images have renditions; one that cannot be rendered is its own rendition
+    private static String renditionUrl(String image, ImageRendition rendition) {
+        if (image == null || !image.startsWith(ImageStorageService.IMAGE_PATH)) {
+            return null;
+        }
+        String name = rendition.nameFor(image.substring(ImageStorageService.IMAGE_PATH.length()));
+        return name == null ? image : ImageStorageService.IMAGE_PATH + name;
+    }
+}
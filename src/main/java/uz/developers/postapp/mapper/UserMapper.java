@@ -0,0 +1,17 @@
+package uz.developers.postapp.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import uz.developers.postapp.entity.User;
+import uz.developers.postapp.payload.UserDto;
+
+@Mapper(componentModel = "spring")
+public interface UserMapper {
+
+    // Entity ---> DTO
+    UserDto toDto(User user);
+
+    // DTO ---> Entity
+    @Mapping(target = "tokenVersion", ignore = true)
+    User toEntity(UserDto userDto);
+}
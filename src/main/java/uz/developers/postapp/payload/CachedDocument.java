@@ -0,0 +1,20 @@
+package uz.developers.postapp.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.file.Path;
+
+/**
+ * A rendered document in the disk cache. The ETag is a digest of the file's bytes.
+ */
+@Data
+@AllArgsConstructor
+public class CachedDocument {
+
+    private Path file;
+
+    private long size;
+
+    private String etag;
+}
@@ -23,6 +23,11 @@ public class CategoryDto {
             example = "Posts related to technological advancements...")
     private String description;
 
+    @Schema(description = "Version of the category, incremented on every update",
+            example = "1",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    private Long version;
+
 
 
 
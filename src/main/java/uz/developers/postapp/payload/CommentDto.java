@@ -29,6 +29,11 @@ public class CommentDto {
             example = "1")
     private Long postId;
 
+    @Schema(description = "Version of the comment, incremented on every update",
+            example = "1",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    private Long version;
+
 
 
 
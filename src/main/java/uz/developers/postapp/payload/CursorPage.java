@@ -0,0 +1,29 @@
+package uz.developers.postapp.payload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One slice of a cursor-paginated list")
+public class CursorPage<T> {
+
+    @Schema(description = "Items of the current slice")
+    private List<T> content;
+
+    @Schema(description = "Requested slice size",
+            example = "10")
+    private int size;
+
+    @Schema(description = "Indicates if there are more items after this slice")
+    private boolean hasNext;
+
+    @Schema(description = "Opaque token to pass as 'cursor' to fetch the next slice, null on the last slice",
+            example = "NDc1MDA6MTIz")
+    private String nextCursor;
+}
@@ -0,0 +1,22 @@
+package uz.developers.postapp.payload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * File formats a bulk export of posts can be rendered to.
+ */
+@Getter
+@RequiredArgsConstructor
+@Schema(description = "File format of a bulk export")
+public enum ExportFormat {
+
+    CSV("csv", "text/csv; charset=UTF-8"),
+    EXCEL("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+    PDF("pdf", "application/pdf");
+
+    private final String extension;
+
+    private final String contentType;
+}
@@ -0,0 +1,56 @@
+package uz.developers.postapp.payload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * State of a background export. The worker updates it while the file is rendered,
+ * so the mutable fields are volatile.
+ */
+@Data
+@NoArgsConstructor
+@Schema(description = "Background export job and its progress")
+public class ExportJobDto {
+
+    @Schema(description = "Job ID, used to poll the job and download its file",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    private String id;
+
+    @Schema(description = "File format of the export")
+    private ExportFormat format;
+
+    @Schema(description = "Which posts are exported")
+    private PostExportFilter filter;
+
+    @Schema(description = "Current state of the job")
+    private volatile ExportJobStatus status;
+
+    @Schema(description = "Number of posts the export will contain, known once the job is running")
+    private volatile Long totalRows;
+
+    @Schema(description = "Number of posts written so far")
+    private volatile long rowsWritten;
+
+    @Schema(description = "Size of the finished file in bytes")
+    private volatile Long fileSize;
+
+    @Schema(description = "Why the job failed")
+    private volatile String error;
+
+    private Instant createdAt;
+
+    private volatile Instant startedAt;
+
+    private volatile Instant finishedAt;
+
+    public ExportJobDto(String id, ExportFormat format, PostExportFilter filter) {
+        this.id = id;
+        this.format = format;
+        this.filter = filter;
+        this.status = ExportJobStatus.QUEUED;
+        this.createdAt = Instant.now();
+    }
+}
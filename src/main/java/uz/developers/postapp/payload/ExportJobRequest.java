@@ -0,0 +1,20 @@
+package uz.developers.postapp.payload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request to export posts in the background")
+public class ExportJobRequest {
+
+    @Schema(description = "File format of the export",
+            example = "EXCEL")
+    private ExportFormat format = ExportFormat.CSV;
+
+    @Schema(description = "Which posts to export, all posts when omitted")
+    private PostExportFilter filter = PostExportFilter.all();
+}
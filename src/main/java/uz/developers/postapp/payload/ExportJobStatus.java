@@ -0,0 +1,8 @@
+package uz.developers.postapp.payload;
+
+public enum ExportJobStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
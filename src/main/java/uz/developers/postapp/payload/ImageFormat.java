@@ -0,0 +1,66 @@
+package uz.developers.postapp.payload;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Image formats posts can be illustrated with, recognised by their leading bytes rather
+ * than by the name or content type the client sent.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ImageFormat {
+
+    JPEG("jpg", "image/jpeg"),
+    PNG("png", "image/png"),
+    GIF("gif", "image/gif"),
+    WEBP("webp", "image/webp");
+
+    // enough leading bytes to tell the formats apart
+    public static final int SIGNATURE_LENGTH = 12;
+
+    private static final byte[] JPEG_SIGNATURE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] GIF_SIGNATURE = "GIF8".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RIFF_SIGNATURE = "RIFF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WEBP_SIGNATURE = "WEBP".getBytes(StandardCharsets.US_ASCII);
+
+    private final String extension;
+
+    private final String contentType;
+
+    // null if the bytes start no supported image
+    public static ImageFormat detect(byte[] head, int length) {
+        if (startsWith(head, length, 0, JPEG_SIGNATURE)) {
+            return JPEG;
+        }
+        if (startsWith(head, length, 0, PNG_SIGNATURE)) {
+            return PNG;
+        }
+        if (startsWith(head, length, 0, GIF_SIGNATURE)) {
+            return GIF;
+        }
+        if (startsWith(head, length, 0, RIFF_SIGNATURE) && startsWith(head, length, 8, WEBP_SIGNATURE)) {
+            return WEBP;
+        }
+        return null;
+    }
+
+    // null for an unknown extension
+    public static ImageFormat fromExtension(String extension) {
+        for (ImageFormat format : values()) {
+            if (format.extension.equals(extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] head, int length, int offset, byte[] signature) {
+        return length >= offset + signature.length
+                && Arrays.equals(head, offset, offset + signature.length, signature, 0, signature.length);
+    }
+}
@@ -0,0 +1,47 @@
+package uz.developers.postapp.payload;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Smaller JPEG variants rendered from every stored post image, named
+ * <image hash>-<suffix>.jpg and stored beside the image.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ImageRendition {
+
+    THUMBNAIL("thumb", 200),
+    MEDIUM("medium", 800);
+
+    public static final ImageFormat FORMAT = ImageFormat.JPEG;
+
+    private final String suffix;
+
+    // longest side in pixels; smaller images are not enlarged
+    private final int maxSize;
+
+    // name of this rendition of a stored image, null if the JDK cannot decode the image (WebP)
+    public String nameFor(String imageName) {
+        int dot = imageName.lastIndexOf('.');
+        if (dot < 0 || ImageFormat.WEBP.getExtension().equals(imageName.substring(dot + 1))) {
+            return null;
+        }
+        return imageName.substring(0, dot) + "-" + suffix + "." + FORMAT.getExtension();
+    }
+
+    // the rendition a name is of, null for the name of an original image
+    public static ImageRendition fromName(String name) {
+        for (ImageRendition rendition : values()) {
+            if (name.endsWith("-" + rendition.suffix + "." + FORMAT.getExtension())) {
+                return rendition;
+            }
+        }
+        return null;
+    }
+
+    // hash of the image a rendition name is of
+    public static String imageHash(String renditionName) {
+        return renditionName.substring(0, renditionName.lastIndexOf('-'));
+    }
+}
@@ -0,0 +1,26 @@
+package uz.developers.postapp.payload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "The logged in user and a token to authenticate later requests with")
+public class LoginResponse {
+
+    @Schema(description = "The logged in user")
+    private UserDto user;
+
+    @Schema(description = "Signed token, sent as \"Authorization: Bearer <token>\"",
+            example = "AAAAAAAAAAEAAAAAZxF2gAAAAAA.3q2-7wVkW8m1Pj0pZ8cXv6hA4Qn2yX9b0sTtU1eRk5c")
+    private String token;
+
+    @Schema(description = "When the token stops being accepted",
+            example = "2024-10-17T22:00:00Z")
+    private Instant expiresAt;
+}
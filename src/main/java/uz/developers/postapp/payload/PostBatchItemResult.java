@@ -0,0 +1,27 @@
+package uz.developers.postapp.payload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outcome of one post of a batch create request")
+public class PostBatchItemResult {
+
+    @Schema(description = "Position of the post in the request",
+            example = "0")
+    private int index;
+
+    @Schema(description = "Whether the post was created, or why it was not")
+    private PostBatchItemStatus status;
+
+    @Schema(description = "The created post, null unless the status is CREATED")
+    private PostDto post;
+
+    @Schema(description = "Why the post was not created",
+            example = "Post with this title name and content already exists")
+    private String error;
+}
@@ -0,0 +1,7 @@
+package uz.developers.postapp.payload;
+
+public enum PostBatchItemStatus {
+    CREATED,
+    DUPLICATE,
+    INVALID
+}
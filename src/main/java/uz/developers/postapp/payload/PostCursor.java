@@ -0,0 +1,43 @@
+package uz.developers.postapp.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import uz.developers.postapp.exceptions.PostException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Position of the last post of a keyset page, i.e. the (date, id) pair the
+ * next page has to seek past. Clients only ever see it as an opaque token.
+ */
+@Data
+@AllArgsConstructor
+public class PostCursor {
+
+    private Date date;
+
+    private Long id;
+
+    public static PostCursor of(PostDto postDto) {
+        return new PostCursor(postDto.getDate(), postDto.getId());
+    }
+
+    public String encode() {
+        String raw = date.toLocalDate().toEpochDay() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PostCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] values = raw.split(":", 2);
+            Date date = Date.valueOf(LocalDate.ofEpochDay(Long.parseLong(values[0])));
+            return new PostCursor(date, Long.parseLong(values[1]));
+        } catch (RuntimeException e) {
+            throw new PostException("Invalid cursor");
+        }
+    }
+}
@@ -34,6 +34,17 @@ public class PostDto {
             example = "http://example.com/image.jpg")
     private String image;
 
+    @Schema(description = "Thumbnail of an uploaded image, at most 200 pixels wide and high; "
+            + "the image itself is served there until the thumbnail is rendered",
+            example = "/api/images/c4aea77ab974f838fa50d81d92270a9b6629a2296146a9f523d249ecc1b02886-thumb.jpg",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    private String imageThumbnail;
+
+    @Schema(description = "Medium size rendition of an uploaded image, at most 800 pixels wide and high",
+            example = "/api/images/c4aea77ab974f838fa50d81d92270a9b6629a2296146a9f523d249ecc1b02886-medium.jpg",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    private String imageMedium;
+
     @Schema(description = "Date when the post was created",
             example = "2024-01-01")
     private Date date;
@@ -45,4 +56,24 @@ public class PostDto {
     @Schema(description = "User ID for the post",
             example = "7")
     private Long userId;
+
+    @Schema(description = "Version of the post, incremented on every update",
+            example = "3",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    private Long version;
+
+    @Schema(description = "Number of comments on the post, updated a few seconds after a comment is added or deleted",
+            example = "12",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    private Long commentCount;
+
+    @Schema(description = "Title of the post's category",
+            example = "Technology",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    private String categoryTitle;
+
+    @Schema(description = "Name of the post's author",
+            example = "Nizomiddin Mirzanazarov",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    private String userName;
 }
@@ -0,0 +1,59 @@
+package uz.developers.postapp.payload;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Selects the posts of a bulk export. At most one criterion is expected;
+ * when none is set all posts are exported.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Selects which posts a bulk export contains")
+public class PostExportFilter {
+
+    @Schema(description = "Export only posts of this category",
+            example = "3")
+    private Long categoryId;
+
+    @Schema(description = "Export only posts of this user",
+            example = "7")
+    private Long userId;
+
+    @Schema(description = "Export only posts matching this full-text search",
+            example = "spring boot")
+    private String keyword;
+
+    public static PostExportFilter all() {
+        return new PostExportFilter();
+    }
+
+    public static PostExportFilter byCategory(Long categoryId) {
+        return new PostExportFilter(categoryId, null, null);
+    }
+
+    public static PostExportFilter byUser(Long userId) {
+        return new PostExportFilter(null, userId, null);
+    }
+
+    public static PostExportFilter byKeyword(String keyword) {
+        return new PostExportFilter(null, null, keyword);
+    }
+
+    // base name of the exported file, without extension
+    public String fileName() {
+        if (categoryId != null) {
+            return "posts_category_" + categoryId;
+        }
+        if (userId != null) {
+            return "posts_user_" + userId;
+        }
+        if (keyword != null) {
+            return "posts_search";
+        }
+        return "posts";
+    }
+}
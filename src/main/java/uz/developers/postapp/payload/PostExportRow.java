@@ -0,0 +1,22 @@
+package uz.developers.postapp.payload;
+
+import java.sql.Date;
+
+/**
+ * Flat, read-only view of a post as it appears in exports.
+ * Streamed straight from the database, so no entities pile up in the persistence context.
+ */
+public interface PostExportRow {
+
+    Long getId();
+
+    String getTitle();
+
+    String getCategoryTitle();
+
+    String getUserName();
+
+    String getContent();
+
+    Date getDate();
+}
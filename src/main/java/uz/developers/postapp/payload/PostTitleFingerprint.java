@@ -0,0 +1,11 @@
+package uz.developers.postapp.payload;
+
+/**
+ * Title and content fingerprint of an existing post, for duplicate checks.
+ */
+public interface PostTitleFingerprint {
+
+    String getTitle();
+
+    String getContentFingerprint();
+}
@@ -5,18 +5,32 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import uz.developers.postapp.entity.Comment;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface CommentRepository extends BaseRepository<Comment, Long> {
 
 
-    // Content exists check
-    @Query(value = "select count(*) > 0 from comment c where c.content = :content", nativeQuery = true)
-    boolean existsByContent(@Param("content") String content);
+    // Content exists check within a post, by the uniquely indexed (post_id, content_fingerprint)
+    boolean existsByPostIdAndContentFingerprint(Long postId, String contentFingerprint);
+
+    boolean existsByPostIdAndContentFingerprintAndIdNot(Long postId, String contentFingerprint, Long id);
 
 
 
-    @Query(value = "select * from comment where post_id = :postId", nativeQuery = true)
+    // CommentDto only needs the user and post ids, which the lazy proxies carry without a select
+    @Query(value = "select c from Comment c where c.post.id = :postId",
+            countQuery = "select count(c) from Comment c where c.post.id = :postId")
     Page<Comment> findByPostId(@Param("postId") Long postId, Pageable pageable);
 
+    // The first comments of each post, oldest first, in one query; idx_comment_post_id_id
+    // delivers every partition already in order
+    @Query(value = "select c.id, c.content, c.content_fingerprint, c.user_id, c.post_id, c.version from (" +
+            "select c.*, row_number() over (partition by c.post_id order by c.id) as position " +
+            "from comment c where c.post_id in (:postIds)) c " +
+            "where c.position <= :limit order by c.post_id, c.id", nativeQuery = true)
+    List<Comment> findFirstByPostIds(@Param("postIds") Collection<Long> postIds, @Param("limit") int limit);
+
 
 
 }
@@ -1,26 +1,122 @@
 package uz.developers.postapp.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
-import uz.developers.postapp.entity.Category;
 import uz.developers.postapp.entity.Post;
+import uz.developers.postapp.payload.PostExportRow;
+import uz.developers.postapp.payload.PostTitleFingerprint;
 
+import java.sql.Date;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface PostRepository extends BaseRepository<Post,Long> {
 
-    @Query(value = "select count(*) > 0 from posts p where p.title = :title or p.content = :content", nativeQuery = true)
-    boolean existsByTitleOrContent(@Param("title") String title, @Param("content") String content);
+    // Duplicate checks, both columns are indexed (content_fingerprint uniquely)
+    @Query(value = "select count(*) > 0 from posts p where p.title = :title or p.content_fingerprint = :fingerprint", nativeQuery = true)
+    boolean existsByTitleOrContentFingerprint(@Param("title") String title, @Param("fingerprint") String fingerprint);
 
+    boolean existsByContentFingerprintAndIdNot(String contentFingerprint, Long id);
 
-    @Query(value = "select * from posts p where p.user_id = :userId", nativeQuery = true)
+    // duplicate check of a whole batch of new posts in one statement
+    @Query("select p.title as title, p.contentFingerprint as contentFingerprint from Post p " +
+            "where p.title in :titles or p.contentFingerprint in :fingerprints")
+    List<PostTitleFingerprint> findByTitleInOrContentFingerprintIn(@Param("titles") Collection<String> titles,
+                                                                   @Param("fingerprints") Collection<String> fingerprints);
+
+
+    // List queries fetch category and user in the same statement: PostDto needs
+    // their titles/names, and the associations are lazy.
+    @Override
+    @EntityGraph(attributePaths = {"category", "user"})
+    Page<Post> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"category", "user"})
+    Optional<Post> findWithCategoryAndUserById(Long id);
+
+    @Query(value = "select p from Post p join fetch p.category join fetch p.user where p.user.id = :userId",
+            countQuery = "select count(p) from Post p where p.user.id = :userId")
     Page<Post> findByUserId(@Param("userId") Long userId, Pageable pageable);
 
+    @Query(value = "select p from Post p join fetch p.category join fetch p.user where p.category.id = :categoryId",
+            countQuery = "select count(p) from Post p where p.category.id = :categoryId")
+    Page<Post> findByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+
+
+    // Full-text search over the generated search_vector column (GIN indexed, see schema.sql).
+    // Accepts web search syntax: several words, "quoted phrases", OR and -excluded words.
+    // Only ids are ranked here, the posts are then loaded with findAllWithCategoryAndUserByIdIn.
+    @Query(value = "select p.id from posts p, websearch_to_tsquery('simple', :query) q " +
+            "where p.search_vector @@ q " +
+            "order by ts_rank_cd(p.search_vector, q) desc, p.id desc", nativeQuery = true)
+    Slice<Long> searchIdsByText(@Param("query") String query, Pageable pageable);
+
+    @Query("select p from Post p join fetch p.category join fetch p.user where p.id in :ids")
+    List<Post> findAllWithCategoryAndUserByIdIn(@Param("ids") Collection<Long> ids);
+
+
+    // Keyset (seek) pagination, newest first. Backed by the (date, id) indexes on posts.
+    // Posts without a date cannot be positioned by a cursor, so they are left out.
+    @Query("select p from Post p join fetch p.category join fetch p.user where p.date is not null order by p.date desc, p.id desc")
+    Slice<Post> findFirstSlice(Pageable pageable);
+
+    @Query("select p from Post p join fetch p.category join fetch p.user where (p.date, p.id) < (:date, :id) order by p.date desc, p.id desc")
+    Slice<Post> findSliceBefore(@Param("date") Date date, @Param("id") Long id, Pageable pageable);
+
+    @Query("select p from Post p join fetch p.category join fetch p.user where p.user.id = :userId and p.date is not null order by p.date desc, p.id desc")
+    Slice<Post> findFirstSliceByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("select p from Post p join fetch p.category join fetch p.user where p.user.id = :userId and (p.date, p.id) < (:date, :id) order by p.date desc, p.id desc")
+    Slice<Post> findSliceByUserIdBefore(@Param("userId") Long userId, @Param("date") Date date, @Param("id") Long id, Pageable pageable);
+
+    @Query("select p from Post p join fetch p.category join fetch p.user where p.category.id = :categoryId and p.date is not null order by p.date desc, p.id desc")
+    Slice<Post> findFirstSliceByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+
+    @Query("select p from Post p join fetch p.category join fetch p.user where p.category.id = :categoryId and (p.date, p.id) < (:date, :id) order by p.date desc, p.id desc")
+    Slice<Post> findSliceByCategoryIdBefore(@Param("categoryId") Long categoryId, @Param("date") Date date, @Param("id") Long id, Pageable pageable);
+
+
+    // Export streams: rows are read through a server-side cursor, EXPORT_FETCH_SIZE at a time.
+    // Callers must consume them inside a transaction and close the stream.
+    String EXPORT_FETCH_SIZE = "500";
+
+    String EXPORT_ROW = "select p.id as id, p.title as title, c.title as categoryTitle, u.name as userName, " +
+            "p.content as content, p.date as date from Post p join p.category c join p.user u ";
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(EXPORT_ROW + "order by p.id")
+    Stream<PostExportRow> streamExportRows();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(EXPORT_ROW + "where c.id = :categoryId order by p.id")
+    Stream<PostExportRow> streamExportRowsByCategoryId(@Param("categoryId") Long categoryId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(EXPORT_ROW + "where u.id = :userId order by p.id")
+    Stream<PostExportRow> streamExportRowsByUserId(@Param("userId") Long userId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(value = "select p.id as id, p.title as title, c.title as categoryTitle, u.name as userName, " +
+            "p.content as content, p.date as date from posts p " +
+            "join category c on c.id = p.category_id join users u on u.id = p.user_id " +
+            "where p.search_vector @@ websearch_to_tsquery('simple', :query) order by p.id", nativeQuery = true)
+    Stream<PostExportRow> streamExportRowsByText(@Param("query") String query);
+
+    // row counts of the exports above, for job progress
+    long countByCategoryId(Long categoryId);
 
-    @Query(value = "select * from posts p where p.title LIKE %:keyword% OR p.content LIKE %:keyword%", nativeQuery = true)
-    Page<Post> searchByTitleOrContent(@Param("keyword") String keyword, Pageable pageable);
+    long countByUserId(Long userId);
 
+    @Query(value = "select count(*) from posts p where p.search_vector @@ websearch_to_tsquery('simple', :query)", nativeQuery = true)
+    long countByText(@Param("query") String query);
 
 }
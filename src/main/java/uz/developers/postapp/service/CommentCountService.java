@@ -0,0 +1,18 @@
+package uz.developers.postapp.service;
+
+/**
+ * Keeps posts.comment_count up to date. Changes are summed in memory and written
+ * in batches, so adding a comment does not update (and lock) its post's row.
+ */
+public interface CommentCountService {
+
+    void commentAdded(Long postId);
+
+    void commentRemoved(Long postId);
+
+    //writes the summed changes to the posts
+    void flush();
+
+    //recounts the comments of every post, fixing any drift of the counters
+    void reconcile();
+}
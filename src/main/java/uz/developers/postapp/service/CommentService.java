@@ -6,12 +6,16 @@ import uz.developers.postapp.exceptions.ResourceNotFoundException;
 import uz.developers.postapp.payload.CommentDto;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface CommentService {
 
     Page<CommentDto> getAllCommentsByPostId(Long postId, int page, int size);
 
+    //first comments of each post, by post id in the order of the given ids
+    Map<Long, List<CommentDto>> getFirstCommentsByPostIds(List<Long> postIds, int limit);
+
     Optional<CommentDto> getCommentById(Long commentId);
 
     CommentDto createComment(Long postId, CommentDto commentDto);
@@ -0,0 +1,16 @@
+package uz.developers.postapp.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uz.developers.postapp.payload.CommentDto;
+
+/**
+ * Pushes new comments of a post to its subscribers as Server-Sent Events,
+ * so clients do not have to poll for them.
+ */
+public interface CommentStreamService {
+
+    SseEmitter subscribe(Long postId);
+
+    //sends a saved comment to the subscribers of its post
+    void commentCreated(CommentDto comment);
+}
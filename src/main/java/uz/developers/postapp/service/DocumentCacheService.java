@@ -0,0 +1,25 @@
+package uz.developers.postapp.service;
+
+import com.itextpdf.text.DocumentException;
+import uz.developers.postapp.payload.CachedDocument;
+import uz.developers.postapp.payload.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface DocumentCacheService {
+
+    // rendered document of a post, rendered on the first request for this content hash;
+    // its file stays in place until the caller releases it
+    CachedDocument getDocument(Long postId, ExportFormat format, String contentHash, DocumentRenderer renderer) throws IOException;
+
+    void release(CachedDocument document);
+
+    void evictPost(Long postId);
+
+    @FunctionalInterface
+    interface DocumentRenderer {
+        void render(OutputStream out) throws IOException, DocumentException;
+    }
+
+}
@@ -0,0 +1,47 @@
+package uz.developers.postapp.service;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import uz.developers.postapp.payload.PostTitleFingerprint;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Duplicate checks of post titles and post/comment contents. Contents are compared by
+ * their {@link uz.developers.postapp.utils.ContentFingerprint}; a comment only repeats a
+ * comment of the same post. In-memory Bloom filters answer most checks of new contents
+ * without a query, as their unique indexes reject what a filter missed. Titles are always
+ * queried.
+ */
+public interface DuplicateCheckService {
+
+    //true if a post has this title or content
+    boolean postExists(String title, String contentFingerprint);
+
+    //true if a post other than postId has this content
+    boolean otherPostHasContent(Long postId, String contentFingerprint);
+
+    //existing posts having any of the titles or contents, in one query
+    List<PostTitleFingerprint> findExistingPosts(Collection<String> titles, Collection<String> contentFingerprints);
+
+    void postSaved(String contentFingerprint);
+
+    void postDeleted();
+
+    //true if a comment of the post has this content
+    boolean commentExists(Long postId, String contentFingerprint);
+
+    boolean otherCommentHasContent(Long commentId, Long postId, String contentFingerprint);
+
+    void commentSaved(Long postId, String contentFingerprint);
+
+    void commentDeleted();
+
+    //true if the insert or update was rejected by a unique content fingerprint index
+    boolean isDuplicateContent(DataIntegrityViolationException e);
+
+    //fingerprints rows written before the column existed, or by plain SQL
+    void backfillFingerprints();
+
+    void rebuildFilters();
+}
@@ -0,0 +1,17 @@
+package uz.developers.postapp.service;
+
+import uz.developers.postapp.payload.ExportJobDto;
+import uz.developers.postapp.payload.ExportJobRequest;
+
+import java.nio.file.Path;
+
+public interface ExportJobService {
+
+    ExportJobDto submitJob(ExportJobRequest request);
+
+    ExportJobDto getJob(String jobId);
+
+    // file of a finished job
+    Path getJobFile(String jobId);
+
+}
@@ -0,0 +1,21 @@
+package uz.developers.postapp.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Future;
+
+public interface ImageRenditionService {
+
+    //queue the missing renditions of a stored image, false if the queue is full
+    boolean requestRenditions(String imageName);
+
+    //render the renditions of a stored image, on the calling thread when the queue is full
+    Future<?> renderRenditions(String imageName, boolean replace);
+
+    //file of a rendition, or of its image until the rendition is rendered
+    Path getRenditionFile(String renditionName);
+
+    //strong ETag of a rendition file, derived from its contents
+    String getRenditionETag(Path renditionFile) throws IOException;
+
+}
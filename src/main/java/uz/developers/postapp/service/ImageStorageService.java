@@ -0,0 +1,32 @@
+package uz.developers.postapp.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+public interface ImageStorageService {
+
+    // images are served by ImageController under this path
+    String IMAGE_PATH = "/api/images/";
+
+    //store an image once per content, returns its name
+    String storeImage(MultipartFile image) throws IOException;
+
+    //store an image file once per content, returns its name
+    String storeImage(Path file) throws IOException;
+
+    //stored file of an image or a rendition
+    Path getImageFile(String name);
+
+    //where an image or a rendition of this name is stored, whether it exists or not
+    Path imageFile(String name);
+
+    //names of all stored images, without their renditions
+    List<String> listImages() throws IOException;
+
+    //name of the stored image a URL points to, null for other URLs
+    String imageName(String url);
+
+}
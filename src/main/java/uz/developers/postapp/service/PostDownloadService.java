@@ -1,16 +1,34 @@
 package uz.developers.postapp.service;
 
 import com.itextpdf.text.DocumentException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import uz.developers.postapp.payload.ExportFormat;
+import uz.developers.postapp.payload.PostExportFilter;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.LongConsumer;
 
 public interface PostDownloadService {
 
-    void generatePDF(Long postId, HttpServletResponse response) throws IOException, DocumentException;
+    // single post documents, served from the document cache; the request carries If-None-Match and Range
+    void generatePDF(Long postId, HttpServletRequest request, HttpServletResponse response) throws IOException;
 
-    void generateExcel(Long postId, HttpServletResponse response) throws IOException;
+    void generateExcel(Long postId, HttpServletRequest request, HttpServletResponse response) throws IOException;
 
-    void generateCSV(Long postId, HttpServletResponse response) throws IOException;
+    void generateCSV(Long postId, HttpServletRequest request, HttpServletResponse response) throws IOException;
+
+    // bulk exports, streamed row by row
+    void exportCSV(PostExportFilter filter, HttpServletResponse response) throws IOException;
+
+    void exportExcel(PostExportFilter filter, HttpServletResponse response) throws IOException;
+
+    // rendering backend of the bulk exports, shared by the downloads above and the export jobs;
+    // progress receives the number of posts written so far
+    void renderExport(ExportFormat format, PostExportFilter filter, OutputStream out, LongConsumer progress)
+            throws IOException, DocumentException;
+
+    long countExportRows(PostExportFilter filter);
 
 }
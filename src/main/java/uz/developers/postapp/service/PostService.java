@@ -1,7 +1,13 @@
 package uz.developers.postapp.service;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.web.multipart.MultipartFile;
 import uz.developers.postapp.exceptions.ResourceNotFoundException;
+import uz.developers.postapp.payload.CursorPage;
+import uz.developers.postapp.payload.PostBatchItemResult;
 import uz.developers.postapp.payload.PostDto;
+import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 
 public interface PostService {
@@ -14,19 +20,32 @@ public interface PostService {
     //get all posts by user
     Page<PostDto> getPostsByUser(Long userId, int page, int size);
 
-    //search posts
-    Page<PostDto> searchPosts(String keyword, int page, int size);
+    //search posts, ranked by relevance
+    Slice<PostDto> searchPosts(String keyword, int page, int size);
 
 
 
     Page<PostDto> getAllPosts(int page, int size);
 
+    //scroll posts by cursor, newest first
+    CursorPage<PostDto> scrollPosts(String cursor, int size);
+
+    CursorPage<PostDto> scrollPostsByUser(Long userId, String cursor, int size);
+
+    CursorPage<PostDto> scrollPostsByCategory(Long categoryId, String cursor, int size);
+
     Optional<PostDto> getPostById(Long postId);
 
     PostDto createPost(PostDto postDto);
 
+    //create many posts at once, each is created or rejected on its own
+    List<PostBatchItemResult> createPosts(List<PostDto> postDtos);
+
     PostDto updatePost(Long postId, PostDto postDto, Long userId);
 
+    //store an image and make it the image of the post
+    PostDto updatePostImage(Long postId, MultipartFile image, Long userId) throws IOException;
+
     void deletePost(Long postId, Long userId);
 
 
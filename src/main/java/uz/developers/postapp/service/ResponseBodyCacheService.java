@@ -0,0 +1,15 @@
+package uz.developers.postapp.service;
+
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+
+/**
+ * Gzip compressed JSON bodies of hot resources, compressed once per ETag
+ * instead of on every response.
+ */
+public interface ResponseBodyCacheService {
+
+    //sends the body compressed, false (nothing sent) if the client does not accept gzip
+    boolean sendGzipped(String etag, Object body, ServletWebRequest webRequest) throws IOException;
+}
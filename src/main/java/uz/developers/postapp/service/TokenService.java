@@ -0,0 +1,30 @@
+package uz.developers.postapp.service;
+
+import uz.developers.postapp.payload.LoginResponse;
+import uz.developers.postapp.payload.UserDto;
+
+/**
+ * Issues and verifies HMAC-signed bearer tokens. A token carries the user id, its expiry and
+ * the user's token version, so it is verified without reading the user; any node configured
+ * with the same secret accepts it.
+ */
+public interface TokenService {
+
+    //signs a token for the user and returns it with the user
+    LoginResponse issueToken(UserDto user, int tokenVersion);
+
+    //id of the user the token was issued to, UserException if it is invalid, expired or revoked
+    Long verifyToken(String token);
+
+    //whether the user's tokens with tokenVersion are rejected, as the user changed since
+    boolean isRevoked(Long userId, int tokenVersion);
+
+    //records that the user's tokens older than tokenVersion are rejected, on every node
+    void revokeTokens(Long userId, int tokenVersion);
+
+    //records that all of the deleted user's tokens are rejected, on every node
+    void userDeleted(Long userId);
+
+    //reloads the recorded revocations, picking up those made on other nodes
+    void refreshTokenVersions();
+}
@@ -1,5 +1,6 @@
 package uz.developers.postapp.service;
 import org.springframework.data.domain.Page;
+import uz.developers.postapp.payload.LoginResponse;
 import uz.developers.postapp.payload.UserDto;
 import java.util.Optional;
 
@@ -9,7 +10,7 @@ public interface UserService {
 
     Optional<UserDto> getUserById(Long userId);
 
-    UserDto loginUser(String email, String password);
+    LoginResponse loginUser(String email, String password);
 
     UserDto createUser(UserDto userDto);
 
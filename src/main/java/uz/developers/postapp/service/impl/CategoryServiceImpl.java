@@ -1,13 +1,16 @@
 package uz.developers.postapp.service.impl;
 
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import uz.developers.postapp.config.CacheConfig;
 import uz.developers.postapp.entity.Category;
 import uz.developers.postapp.exceptions.CategoryException;
 import uz.developers.postapp.exceptions.ResourceNotFoundException;
+import uz.developers.postapp.mapper.CategoryMapper;
 import uz.developers.postapp.payload.CategoryDto;
 import uz.developers.postapp.repository.CategoryRepository;
 import uz.developers.postapp.service.CategoryService;
@@ -18,18 +21,20 @@ import java.util.Optional;
 public class CategoryServiceImpl implements CategoryService {
 
 
-    private final ModelMapper modelMapper;
+    private final CategoryMapper categoryMapper;
 
     private final CategoryRepository categoryRepository;
 
 
     @Override
+    @Transactional(readOnly = true)
     public Page<CategoryDto> getAllCategories(int page, int size) {
         Page<Category> categoriesPage = categoryRepository.findAll(PageRequest.of(page, size));
         return categoriesPage.map(this::categoryToDto);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<CategoryDto> getCategoryById(Long categoryId) {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", " Id ", categoryId));
@@ -50,7 +55,9 @@ public class CategoryServiceImpl implements CategoryService {
         return categoryToDto(savedCategory);
     }
 
+    // cached posts carry the category title
     @Override
+    @CacheEvict(cacheNames = CacheConfig.POSTS_CACHE, allEntries = true)
     public CategoryDto updateCategory(Long categoryId, CategoryDto categoryDto) {
         Category existingCategory = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", " Id ", categoryId));
@@ -61,7 +68,9 @@ public class CategoryServiceImpl implements CategoryService {
         return categoryToDto(updatedCategory);
     }
 
+    // posts of the deleted category are removed by cascade
     @Override
+    @CacheEvict(cacheNames = CacheConfig.POSTS_CACHE, allEntries = true)
     public void deleteCategory(Long categoryId) {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", " Id ", categoryId));
@@ -71,12 +80,12 @@ public class CategoryServiceImpl implements CategoryService {
 
     // DTO ---> Entity
     private Category dtoToCategory(CategoryDto categoryDto) {
-        return modelMapper.map(categoryDto, Category.class);
+        return categoryMapper.toEntity(categoryDto);
     }
 
     // Entity ---> DTO
     public CategoryDto categoryToDto(Category category) {
-        return modelMapper.map(category, CategoryDto.class);
+        return categoryMapper.toDto(category);
     }
 
 }
@@ -0,0 +1,102 @@
+package uz.developers.postapp.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uz.developers.postapp.config.CacheConfig;
+import uz.developers.postapp.service.CommentCountService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CommentCountServiceImpl implements CommentCountService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final CacheManager cacheManager;
+
+    // pending change per post; LongAdder spreads concurrent comments on a hot post over cells
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void commentAdded(Long postId) {
+        pending.computeIfAbsent(postId, id -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void commentRemoved(Long postId) {
+        pending.computeIfAbsent(postId, id -> new LongAdder()).decrement();
+    }
+
+    // One batch of updates, in id order so concurrent flushes cannot deadlock. A post whose
+    // entry is dropped while a comment is being counted on it can lose that change; the
+    // reconciliation corrects it.
+    @Override
+    @Scheduled(fixedDelayString = "${app.comments.count.flush-interval:PT5S}")
+    public synchronized void flush() {
+        Map<Long, Long> deltas = new TreeMap<>();
+        pending.forEach((postId, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta != 0) {
+                deltas.put(postId, delta);
+            } else {
+                pending.remove(postId, adder);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Object[]> updates = new ArrayList<>(deltas.size());
+        deltas.forEach((postId, delta) -> updates.add(new Object[]{delta, postId}));
+        try {
+            jdbcTemplate.batchUpdate("update posts set comment_count = comment_count + ? where id = ?", updates);
+        } catch (RuntimeException e) {
+            // kept for the next flush
+            deltas.forEach((postId, delta) -> pending.computeIfAbsent(postId, id -> new LongAdder()).add(delta));
+            throw e;
+        }
+        Cache posts = cacheManager.getCache(CacheConfig.POSTS_CACHE);
+        if (posts != null) {
+            deltas.keySet().forEach(posts::evict);
+        }
+    }
+
+    // Runs at startup too: changes not flushed before a shutdown or crash are lost.
+    // Comments added while it runs may be counted twice until the next run.
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.comments.count.reconcile-cron:0 30 3 * * *}")
+    public synchronized void reconcile() {
+        flush();
+        long start = System.nanoTime();
+        int fixed = jdbcTemplate.update("update posts p set comment_count = coalesce(c.total, 0) " +
+                "from posts q left join (select post_id, count(*) as total from comment group by post_id) c on c.post_id = q.id " +
+                "where p.id = q.id and p.comment_count <> coalesce(c.total, 0)");
+        if (fixed > 0) {
+            log.info("Corrected the comment count of {} posts in {} ms", fixed, (System.nanoTime() - start) / 1_000_000);
+            Cache posts = cacheManager.getCache(CacheConfig.POSTS_CACHE);
+            if (posts != null) {
+                posts.clear();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
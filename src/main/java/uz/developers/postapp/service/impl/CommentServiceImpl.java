@@ -1,40 +1,131 @@
 package uz.developers.postapp.service.impl;
 
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uz.developers.postapp.config.CacheConfig;
 import uz.developers.postapp.entity.Comment;
 import uz.developers.postapp.entity.Post;
 import uz.developers.postapp.exceptions.CommentException;
 import uz.developers.postapp.exceptions.ResourceNotFoundException;
 import uz.developers.postapp.exceptions.UserException;
+import uz.developers.postapp.mapper.CommentMapper;
 import uz.developers.postapp.payload.CommentDto;
 import uz.developers.postapp.repository.CommentRepository;
 import uz.developers.postapp.repository.PostRepository;
+import uz.developers.postapp.service.CommentCountService;
 import uz.developers.postapp.service.CommentService;
-
+import uz.developers.postapp.service.CommentStreamService;
+import uz.developers.postapp.service.DuplicateCheckService;
+import uz.developers.postapp.utils.ContentFingerprint;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 @Service
 @RequiredArgsConstructor
 public class CommentServiceImpl implements CommentService {
 
-    private final ModelMapper modelMapper;
+    private final CommentMapper commentMapper;
 
     private final CommentRepository commentRepository;
 
     private final PostRepository postRepository;
 
+    private final DuplicateCheckService duplicateCheckService;
+
+    private final CommentCountService commentCountService;
+
+    private final CommentStreamService commentStreamService;
+
+    private final CacheManager cacheManager;
+
+    @Value("${app.comments.preview.max-posts:100}")
+    private int maxPreviewPosts;
+
+    @Value("${app.comments.preview.max-limit:10}")
+    private int maxPreviewLimit;
+
+    // Bumped whenever the first comments of a post change, striped by post id. A load that read
+    // the comments before a change may cache them after the change's eviction; it then finds the
+    // stamp moved and evicts its entry again.
+    private final AtomicLongArray firstCommentsStamps = new AtomicLongArray(1024);
+
     @Override
+    @Transactional(readOnly = true)
     public Page<CommentDto> getAllCommentsByPostId(Long postId, int page, int size) {
         PageRequest pageRequest = PageRequest.of(page, size);
         Page<Comment> commentsPage = commentRepository.findByPostId(postId, pageRequest);
         return commentsPage.map(this::commentToDto);
     }
 
+    // Cached per post with the first maxPreviewLimit comments, so any limit is served from the
+    // same entry; the posts not in the cache are loaded together. Not read-only: the entries are
+    // only evicted on writes, so they must not be filled from a lagging replica
+    @Override
+    public Map<Long, List<CommentDto>> getFirstCommentsByPostIds(List<Long> postIds, int limit) {
+        if (postIds == null || postIds.isEmpty() || postIds.size() > maxPreviewPosts) {
+            throw new CommentException("Between 1 and " + maxPreviewPosts + " post ids must be given");
+        }
+        if (limit < 1 || limit > maxPreviewLimit) {
+            throw new CommentException("Limit must be between 1 and " + maxPreviewLimit);
+        }
+        Cache cache = cacheManager.getCache(CacheConfig.COMMENTS_CACHE);
+        Map<Long, List<CommentDto>> comments = new LinkedHashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Long postId : postIds) {
+            if (postId == null) {
+                throw new CommentException("Post ids must not be null");
+            }
+            @SuppressWarnings("unchecked")
+            List<CommentDto> cached = cache.get(postId, List.class);
+            comments.put(postId, cached);
+            if (cached == null) {
+                missing.add(postId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Long, Long> stamps = new HashMap<>();
+            Map<Long, List<CommentDto>> loaded = new HashMap<>();
+            missing.forEach(postId -> {
+                stamps.put(postId, firstCommentsStamps.get(stampIndex(postId)));
+                loaded.put(postId, new ArrayList<>());
+            });
+            for (Comment comment : commentRepository.findFirstByPostIds(missing, maxPreviewLimit)) {
+                loaded.get(comment.getPost().getId()).add(commentToDto(comment));
+            }
+            loaded.forEach((postId, postComments) -> {
+                List<CommentDto> first = List.copyOf(postComments);
+                // putIfAbsent and evictIfPresent act at once, also in a transaction, which the
+                // stamp check right after the put relies on
+                cache.putIfAbsent(postId, first);
+                if (firstCommentsStamps.get(stampIndex(postId)) != stamps.get(postId)) {
+                    cache.evictIfPresent(postId);
+                }
+                comments.put(postId, first);
+            });
+        }
+        comments.replaceAll((postId, postComments) -> postComments.subList(0, Math.min(limit, postComments.size())));
+        return comments;
+    }
+
     @Override
+    @Transactional(readOnly = true)
     public Optional<CommentDto> getCommentById(Long id) {
         Comment comment = commentRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Comment", "id", id));
@@ -50,8 +141,27 @@ public class CommentServiceImpl implements CommentService {
         if (comment.getContent() == null || comment.getContent().trim().isEmpty()) {
             throw new CommentException("Comment content must not be null or empty");
         }
-        Comment savedComment = commentRepository.save(comment);
-        return commentToDto(savedComment);
+        String fingerprint = ContentFingerprint.of(comment.getContent());
+        if (duplicateCheckService.commentExists(postId, fingerprint)) {
+            throw new CommentException("Comment with this content already exists");
+        }
+        Comment savedComment;
+        try {
+            savedComment = commentRepository.save(comment);
+        } catch (DataIntegrityViolationException e) {
+            // the same content was saved concurrently
+            if (duplicateCheckService.isDuplicateContent(e)) {
+                throw new CommentException("Comment with this content already exists");
+            }
+            throw e;
+        }
+        duplicateCheckService.commentSaved(postId, savedComment.getContentFingerprint());
+        commentCountService.commentAdded(postId);
+        evictFirstComments(postId);
+        CommentDto createdComment = commentToDto(savedComment);
+        // saved outside a transaction, so subscribers only ever see committed comments
+        commentStreamService.commentCreated(createdComment);
+        return createdComment;
     }
 
     @Override
@@ -62,9 +172,24 @@ public class CommentServiceImpl implements CommentService {
         if (!existingComment.getUser().getId().equals(userId)) {
             throw new UserException("You are not authorized to update this comment");
         }
+        String fingerprint = ContentFingerprint.of(commentDto.getContent());
+        if (fingerprint != null && !fingerprint.equals(existingComment.getContentFingerprint())
+                && duplicateCheckService.otherCommentHasContent(commentId, existingComment.getPost().getId(), fingerprint)) {
+            throw new CommentException("Comment with this content already exists");
+        }
         //Comment commentDetails = dtoToComment(commentDto);
         existingComment.setContent(commentDto.getContent());
-        Comment updatedComment = commentRepository.save(existingComment);
+        Comment updatedComment;
+        try {
+            updatedComment = commentRepository.save(existingComment);
+        } catch (DataIntegrityViolationException e) {
+            if (duplicateCheckService.isDuplicateContent(e)) {
+                throw new CommentException("Comment with this content already exists");
+            }
+            throw e;
+        }
+        duplicateCheckService.commentSaved(updatedComment.getPost().getId(), fingerprint);
+        evictFirstComments(updatedComment.getPost().getId());
         return commentToDto(updatedComment);
     }
 
@@ -77,16 +202,43 @@ public class CommentServiceImpl implements CommentService {
             throw new UserException("You are not authorized to delete this comment");
         }
         commentRepository.delete(comment);
+        duplicateCheckService.commentDeleted();
+        commentCountService.commentRemoved(comment.getPost().getId());
+        evictFirstComments(comment.getPost().getId());
+    }
+
+    // after the commit of an enclosing transaction: a load between the eviction and the commit
+    // would read the old comments with the new stamp
+    private void evictFirstComments(Long postId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            firstCommentsChanged(postId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                firstCommentsChanged(postId);
+            }
+        });
+    }
+
+    private void firstCommentsChanged(Long postId) {
+        firstCommentsStamps.incrementAndGet(stampIndex(postId));
+        cacheManager.getCache(CacheConfig.COMMENTS_CACHE).evictIfPresent(postId);
+    }
+
+    private int stampIndex(Long postId) {
+        return Math.floorMod(Long.hashCode(postId), firstCommentsStamps.length());
     }
 
     // DTO to Entity
     private Comment dtoToComment(CommentDto commentDto){
-        return modelMapper.map(commentDto, Comment.class);
+        return commentMapper.toEntity(commentDto);
     }
 
     // Entity to DTO
     public CommentDto commentToDto(Comment comment){
-        return modelMapper.map(comment, CommentDto.class);
+        return commentMapper.toDto(comment);
     }
 
 
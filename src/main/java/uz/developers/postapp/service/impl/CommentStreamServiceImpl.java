@@ -0,0 +1,201 @@
+package uz.developers.postapp.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uz.developers.postapp.exceptions.ResourceNotFoundException;
+import uz.developers.postapp.payload.CommentDto;
+import uz.developers.postapp.repository.PostRepository;
+import uz.developers.postapp.service.CommentStreamService;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An open stream holds no thread: the request goes async and its emitter waits in the
+ * registry. Events are queued per subscriber and written by a virtual thread that exists
+ * only while the queue has events, so a slow client never delays the request that added
+ * the comment. A client whose queue overflows is disconnected; it reconnects and reloads
+ * the comments it missed.
+ */
+@Slf4j
+@Service
+public class CommentStreamServiceImpl implements CommentStreamService {
+
+    private final PostRepository postRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final Duration timeout;
+
+    private final int bufferSize;
+
+    // subscribers by post id; publishing only reads it, so a new comment takes no lock
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("comment-stream-", 1).factory());
+
+    private final Counter droppedCounter;
+
+    public CommentStreamServiceImpl(
+            PostRepository postRepository,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.comments.stream.timeout:PT30M}") Duration timeout,
+            @Value("${app.comments.stream.buffer-size:32}") int bufferSize) {
+        this.postRepository = postRepository;
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+        this.bufferSize = bufferSize;
+        Gauge.builder("comments.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open comment streams")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("comments.stream.dropped")
+                .description("Comment streams closed because the client did not keep up")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public SseEmitter subscribe(Long postId) {
+        if (!postRepository.existsById(postId)) {
+            throw new ResourceNotFoundException("Post", "id", postId);
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(postId, emitter, new ArrayBlockingQueue<>(bufferSize));
+        // added inside compute, so it cannot land in a set that remove() is discarding
+        subscribers.compute(postId, (id, postSubscribers) -> {
+            Set<Subscriber> set = postSubscribers == null ? ConcurrentHashMap.newKeySet() : postSubscribers;
+            set.add(subscriber);
+            return set;
+        });
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> remove(subscriber));
+        // sent right away, so the client sees the stream open before the first comment
+        enqueue(subscriber, SseEmitter.event().comment("subscribed").reconnectTime(3000).build());
+        return emitter;
+    }
+
+    @Override
+    public void commentCreated(CommentDto comment) {
+        Set<Subscriber> postSubscribers = subscribers.get(comment.getPostId());
+        if (postSubscribers == null || postSubscribers.isEmpty()) {
+            return;
+        }
+        Set<DataWithMediaType> event;
+        try {
+            // serialized once for all subscribers
+            event = SseEmitter.event()
+                    .id(String.valueOf(comment.getId()))
+                    .name("comment")
+                    .data(objectMapper.writeValueAsString(comment))
+                    .build();
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize comment {} for its stream", comment.getId(), e);
+            return;
+        }
+        for (Subscriber subscriber : postSubscribers) {
+            enqueue(subscriber, event);
+        }
+    }
+
+    // Keeps idle streams open through proxies and load balancers, and finds the
+    // connections of clients that went away without closing them
+    @Scheduled(fixedDelayString = "${app.comments.stream.heartbeat-interval:PT15S}")
+    public void sendHeartbeats() {
+        Set<DataWithMediaType> heartbeat = SseEmitter.event().comment("heartbeat").build();
+        subscribers.values().forEach(postSubscribers -> postSubscribers.forEach(subscriber -> enqueue(subscriber, heartbeat)));
+    }
+
+    @PreDestroy
+    public void closeStreams() {
+        subscribers.values().forEach(postSubscribers -> postSubscribers.forEach(this::complete));
+        senders.shutdownNow();
+    }
+
+    private void enqueue(Subscriber subscriber, Set<DataWithMediaType> event) {
+        if (!subscriber.queue().offer(event)) {
+            if (remove(subscriber)) {
+                droppedCounter.increment();
+                log.debug("Closing the comment stream of post {}, the client does not keep up", subscriber.postId());
+                // complete() waits for a send in progress, which is what is slow
+                senders.execute(() -> complete(subscriber));
+            }
+            return;
+        }
+        if (subscriber.sending().compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    // runs on one sender at a time per subscriber, as long as its queue has events
+    private void drain(Subscriber subscriber) {
+        do {
+            Set<DataWithMediaType> event;
+            while ((event = subscriber.queue().poll()) != null) {
+                try {
+                    subscriber.emitter().send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // the client is gone, or the stream was completed meanwhile
+                    remove(subscriber);
+                    subscriber.queue().clear();
+                    subscriber.sending().set(false);
+                    return;
+                }
+            }
+            subscriber.sending().set(false);
+        } while (!subscriber.queue().isEmpty() && subscriber.sending().compareAndSet(false, true));
+    }
+
+    private void complete(Subscriber subscriber) {
+        try {
+            subscriber.emitter().complete();
+        } catch (IllegalStateException e) {
+            // the connection is already closed
+            log.debug("Comment stream of post {} was already closed", subscriber.postId());
+        }
+    }
+
+    // true if the subscriber was still registered
+    private boolean remove(Subscriber subscriber) {
+        boolean[] removed = new boolean[1];
+        subscribers.computeIfPresent(subscriber.postId(), (id, postSubscribers) -> {
+            removed[0] = postSubscribers.remove(subscriber);
+            return postSubscribers.isEmpty() ? null : postSubscribers;
+        });
+        if (removed[0]) {
+            subscriberCount.decrementAndGet();
+        }
+        return removed[0];
+    }
+
+    private record Subscriber(Long postId, SseEmitter emitter, BlockingQueue<Set<DataWithMediaType>> queue,
+                              AtomicBoolean sending) {
+
+        Subscriber(Long postId, SseEmitter emitter, BlockingQueue<Set<DataWithMediaType>> queue) {
+            this(postId, emitter, queue, new AtomicBoolean());
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package uz.developers.postapp.service.impl;
+
+import com.itextpdf.text.DocumentException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import uz.developers.postapp.payload.CachedDocument;
+import uz.developers.postapp.payload.ExportFormat;
+import uz.developers.postapp.service.DocumentCacheService;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendered post documents kept on local disk. Entries are keyed by post id, format and a
+ * hash of the post content, so a changed post never hits a stale document; evictPost only
+ * frees the space early. The least recently used documents are deleted once their total
+ * size exceeds app.documents.cache.max-size.
+ * <p>
+ * A document is leased to each request sending it until the request releases it. A document
+ * removed from the cache while leased keeps its file until the last lease is released, so a
+ * download in progress is never cut short.
+ * <p>
+ * Meters: documents.cache.requests (tagged hit or miss), documents.cache.size (bytes on disk),
+ * documents.render (tagged with the format) and exports.bytes (kind document).
+ */
+@Slf4j
+@Service
+public class DocumentCacheServiceImpl implements DocumentCacheService {
+
+    private static final String FILE_PREFIX = "post-";
+
+    private final Path directory;
+
+    private final long maxSize;
+
+    // access ordered: iteration starts at the least recently used document; guarded by this
+    private final LinkedHashMap<String, CachedDocument> documents = new LinkedHashMap<>(16, 0.75f, true);
+
+    // number of requests sending each document; guarded by this
+    private final Map<CachedDocument, Integer> leases = new IdentityHashMap<>();
+
+    // documents removed from the cache while leased, their files are deleted on the last release
+    private final Map<CachedDocument, Boolean> removedWhileLeased = new IdentityHashMap<>();
+
+    private long totalSize;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    public DocumentCacheServiceImpl(
+            @Value("${app.documents.cache.directory:${java.io.tmpdir}/post-app-documents}") Path directory,
+            @Value("${app.documents.cache.max-size:256MB}") DataSize maxSize,
+            MeterRegistry meterRegistry) throws IOException {
+        this.directory = directory;
+        this.maxSize = maxSize.toBytes();
+        this.meterRegistry = meterRegistry;
+        this.hitCounter = requestCounter("hit");
+        this.missCounter = requestCounter("miss");
+        Gauge.builder("documents.cache.size", this, DocumentCacheServiceImpl::getTotalSize)
+                .description("Size of the rendered documents on disk")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Files.createDirectories(directory);
+        // the index lives in memory, files of a previous run are unknown to it
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, FILE_PREFIX + "*")) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+    }
+
+    @Override
+    public CachedDocument getDocument(Long postId, ExportFormat format, String contentHash, DocumentRenderer renderer) throws IOException {
+        String key = FILE_PREFIX + postId + "-" + format.getExtension() + "-" + contentHash;
+        synchronized (this) {
+            CachedDocument document = documents.get(key);
+            if (document != null) {
+                hitCounter.increment();
+                return lease(document);
+            }
+        }
+        missCounter.increment();
+        // rendered outside the lock; if two requests miss at once the first stored document wins
+        return store(key, render(key, format, renderer));
+    }
+
+    @Override
+    public synchronized void release(CachedDocument document) {
+        Integer count = leases.get(document);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            leases.put(document, count - 1);
+            return;
+        }
+        leases.remove(document);
+        if (removedWhileLeased.remove(document) != null) {
+            deleteQuietly(document.getFile());
+        }
+    }
+
+    @Override
+    public synchronized void evictPost(Long postId) {
+        String prefix = FILE_PREFIX + postId + "-";
+        Iterator<Map.Entry<String, CachedDocument>> iterator = documents.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, CachedDocument> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                iterator.remove();
+                remove(entry.getValue());
+            }
+        }
+    }
+
+    private synchronized CachedDocument store(String key, CachedDocument document) {
+        CachedDocument existing = documents.putIfAbsent(key, document);
+        if (existing != null) {
+            deleteQuietly(document.getFile());
+            return lease(existing);
+        }
+        totalSize += document.getSize();
+        Iterator<CachedDocument> leastRecentlyUsed = documents.values().iterator();
+        while (totalSize > maxSize) {
+            CachedDocument eldest = leastRecentlyUsed.next();
+            if (eldest == document) {
+                break;
+            }
+            leastRecentlyUsed.remove();
+            remove(eldest);
+        }
+        return lease(document);
+    }
+
+    private CachedDocument lease(CachedDocument document) {
+        leases.merge(document, 1, Integer::sum);
+        return document;
+    }
+
+    private synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    private Counter requestCounter(String result) {
+        return Counter.builder("documents.cache.requests")
+                .description("Lookups of rendered documents")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // the space of a leased document counts as free already, it is deleted soon after
+    private void remove(CachedDocument document) {
+        totalSize -= document.getSize();
+        if (leases.containsKey(document)) {
+            removedWhileLeased.put(document, Boolean.TRUE);
+        } else {
+            deleteQuietly(document.getFile());
+        }
+    }
+
+    private CachedDocument render(String key, ExportFormat format, DocumentRenderer renderer) throws IOException {
+        Path file = null;
+        long start = System.nanoTime();
+        try {
+            // every render gets its own file, so removing a document never touches another one
+            file = Files.createTempFile(directory, key + "-", "." + format.getExtension());
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(file)), digest)) {
+                renderer.render(out);
+            }
+            String etag = "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+            long size = Files.size(file);
+            Timer.builder("documents.render")
+                    .description("Time spent rendering post documents")
+                    .tag("format", format.getExtension())
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            Counter.builder("exports.bytes")
+                    .description("Bytes of exported documents")
+                    .baseUnit("bytes")
+                    .tag("format", format.getExtension())
+                    .tag("kind", "document")
+                    .register(meterRegistry)
+                    .increment(size);
+            return new CachedDocument(file, size, etag);
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw e;
+        } catch (DocumentException | NoSuchAlgorithmException e) {
+            deleteQuietly(file);
+            throw new IOException("Could not render " + key, e);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete cached document {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package uz.developers.postapp.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uz.developers.postapp.payload.PostTitleFingerprint;
+import uz.developers.postapp.repository.CommentRepository;
+import uz.developers.postapp.repository.PostRepository;
+import uz.developers.postapp.service.DuplicateCheckService;
+import uz.developers.postapp.utils.BloomFilter;
+import uz.developers.postapp.utils.ContentFingerprint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DuplicateCheckServiceImpl implements DuplicateCheckService {
+
+    private static final Set<String> FINGERPRINT_INDEXES = Set.of("idx_posts_content_fingerprint", "idx_comment_post_content_fingerprint");
+
+    private static final int BACKFILL_CHUNK = 1000;
+    private static final int REBUILD_CHUNK = 10000;
+
+    private final PostRepository postRepository;
+
+    private final CommentRepository commentRepository;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.duplicates.bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.duplicates.bloom.min-capacity:100000}")
+    private long minCapacity;
+
+    // null until built at startup, every check goes to the database until then
+    private volatile Filters filters;
+
+    // updates made while the filters are rebuilt, replayed on the new ones; guarded by this
+    private List<Consumer<Filters>> pending;
+
+    // Titles have no unique index to catch what a filter of this node has not seen, such as
+    // a title saved by another node since the last rebuild, so they are always queried
+    @Override
+    public boolean postExists(String title, String contentFingerprint) {
+        return postRepository.existsByTitleOrContentFingerprint(title, contentFingerprint);
+    }
+
+    @Override
+    public boolean otherPostHasContent(Long postId, String contentFingerprint) {
+        Filters current = filters;
+        if (current != null && !current.postContents.mightContain(contentFingerprint)) {
+            return false;
+        }
+        return postRepository.existsByContentFingerprintAndIdNot(contentFingerprint, postId);
+    }
+
+    @Override
+    public List<PostTitleFingerprint> findExistingPosts(Collection<String> titles, Collection<String> contentFingerprints) {
+        Filters current = filters;
+        List<String> probedFingerprints = contentFingerprints.stream()
+                .filter(fingerprint -> current == null || current.postContents.mightContain(fingerprint))
+                .toList();
+        if (titles.isEmpty() && probedFingerprints.isEmpty()) {
+            return List.of();
+        }
+        return postRepository.findByTitleInOrContentFingerprintIn(titles, probedFingerprints);
+    }
+
+    @Override
+    public void postSaved(String contentFingerprint) {
+        update(current -> {
+            put(current.postContents, contentFingerprint);
+            current.posts.incrementAndGet();
+        });
+    }
+
+    // Bloom filters cannot forget a value: a deleted post's content only
+    // cost a query when they come again, until the next rebuild drops them
+    @Override
+    public void postDeleted() {
+        update(current -> current.removed.incrementAndGet());
+    }
+
+    @Override
+    public boolean commentExists(Long postId, String contentFingerprint) {
+        Filters current = filters;
+        if (current != null && !current.commentContents.mightContain(commentKey(postId, contentFingerprint))) {
+            return false;
+        }
+        return commentRepository.existsByPostIdAndContentFingerprint(postId, contentFingerprint);
+    }
+
+    @Override
+    public boolean otherCommentHasContent(Long commentId, Long postId, String contentFingerprint) {
+        Filters current = filters;
+        if (current != null && !current.commentContents.mightContain(commentKey(postId, contentFingerprint))) {
+            return false;
+        }
+        return commentRepository.existsByPostIdAndContentFingerprintAndIdNot(postId, contentFingerprint, commentId);
+    }
+
+    @Override
+    public void commentSaved(Long postId, String contentFingerprint) {
+        update(current -> {
+            put(current.commentContents, commentKey(postId, contentFingerprint));
+            current.comments.incrementAndGet();
+        });
+    }
+
+    @Override
+    public void commentDeleted() {
+        update(current -> current.removed.incrementAndGet());
+    }
+
+    @Override
+    public boolean isDuplicateContent(DataIntegrityViolationException e) {
+        return e.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                && FINGERPRINT_INDEXES.contains(violation.getConstraintName().toLowerCase());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        backfillFingerprints();
+        rebuildFilters();
+    }
+
+    @Override
+    public void backfillFingerprints() {
+        backfill("posts", "");
+        backfill("comment", " and other.post_id = row.post_id");
+    }
+
+    // Rows whose content an older row already has (of the same post, for comments) keep a null
+    // fingerprint, the unique index would reject theirs. Walks the table by id, so those rows
+    // are passed over.
+    private void backfill(String table, String sameScope) {
+        String select = "select id, content from " + table + " where id > ? and content_fingerprint is null order by id limit ?";
+        String update = "update " + table + " row set content_fingerprint = ? where id = ? " +
+                "and not exists (select 1 from " + table + " other where other.content_fingerprint = ?" + sameScope + ")";
+        long lastId = 0;
+        long filled = 0;
+        long duplicates = 0;
+        while (true) {
+            List<Object[]> rows = new ArrayList<>();
+            jdbcTemplate.query(select, rs -> {
+                String fingerprint = ContentFingerprint.of(rs.getString("content"));
+                rows.add(new Object[]{fingerprint, rs.getLong("id"), fingerprint});
+            }, lastId, BACKFILL_CHUNK);
+            if (rows.isEmpty()) {
+                break;
+            }
+            for (int count : jdbcTemplate.batchUpdate(update, rows)) {
+                if (count > 0) {
+                    filled++;
+                } else {
+                    duplicates++;
+                }
+            }
+            lastId = (Long) rows.get(rows.size() - 1)[1];
+        }
+        if (filled > 0) {
+            log.info("Fingerprinted the content of {} rows in {}", filled, table);
+        }
+        if (duplicates > 0) {
+            log.warn("{} rows in {} repeat the content of an older row and were left without a fingerprint", duplicates, table);
+        }
+    }
+
+    // Builds new filters sized for twice the current rows and swaps them in. Updates made
+    // meanwhile go to the old filters and are replayed on the new ones.
+    @Override
+    public void rebuildFilters() {
+        synchronized (this) {
+            if (pending != null) {
+                return;
+            }
+            pending = new ArrayList<>();
+        }
+        try {
+            long start = System.nanoTime();
+            Filters rebuilt = new Filters(
+                    capacity(postRepository.count()),
+                    capacity(commentRepository.count()),
+                    falsePositiveRate);
+            load("select id, content_fingerprint as fingerprint from posts where id > ? order by id limit ?", fingerprint -> {
+                put(rebuilt.postContents, fingerprint);
+                rebuilt.posts.incrementAndGet();
+            });
+            // null when the comment has no fingerprint yet, as the concatenation
+            load("select id, post_id || ':' || content_fingerprint as fingerprint from comment where id > ? order by id limit ?", key -> {
+                put(rebuilt.commentContents, key);
+                rebuilt.comments.incrementAndGet();
+            });
+            synchronized (this) {
+                pending.forEach(update -> update.accept(rebuilt));
+                filters = rebuilt;
+            }
+            log.info("Duplicate filters rebuilt for {} posts and {} comments in {} ms",
+                    rebuilt.posts.get(), rebuilt.comments.get(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            synchronized (this) {
+                pending = null;
+            }
+        }
+    }
+
+    // rebuilt when they fill up past their capacity, or a tenth of their entries are gone
+    @Scheduled(fixedDelayString = "${app.duplicates.check-interval:PT10M}")
+    public void rebuildFiltersIfNeeded() {
+        Filters current = filters;
+        if (current != null && current.needRebuild()) {
+            rebuildFilters();
+        }
+    }
+
+    private synchronized void update(Consumer<Filters> update) {
+        if (filters != null) {
+            update.accept(filters);
+        }
+        if (pending != null) {
+            pending.add(update);
+        }
+    }
+
+    private void load(String sql, Consumer<String> consumer) {
+        long[] lastId = {0};
+        int[] rows = new int[1];
+        do {
+            rows[0] = 0;
+            jdbcTemplate.query(sql, rs -> {
+                consumer.accept(rs.getString("fingerprint"));
+                lastId[0] = rs.getLong("id");
+                rows[0]++;
+            }, lastId[0], REBUILD_CHUNK);
+        } while (rows[0] == REBUILD_CHUNK);
+    }
+
+    private static void put(BloomFilter filter, String value) {
+        if (value != null) {
+            filter.put(value);
+        }
+    }
+
+    // comments are unique per post, so the filter holds post id and fingerprint
+    private static String commentKey(Long postId, String contentFingerprint) {
+        return contentFingerprint == null ? null : postId + ":" + contentFingerprint;
+    }
+
+    private long capacity(long rows) {
+        return Math.max(minCapacity, rows * 2);
+    }
+
+    private static final class Filters {
+
+        final BloomFilter postContents;
+        final BloomFilter commentContents;
+        final long postCapacity;
+        final long commentCapacity;
+        final AtomicLong posts = new AtomicLong();
+        final AtomicLong comments = new AtomicLong();
+        final AtomicLong removed = new AtomicLong();
+
+        Filters(long postCapacity, long commentCapacity, double falsePositiveRate) {
+            this.postContents = new BloomFilter(postCapacity, falsePositiveRate);
+            this.commentContents = new BloomFilter(commentCapacity, falsePositiveRate);
+            this.postCapacity = postCapacity;
+            this.commentCapacity = commentCapacity;
+        }
+
+        boolean needRebuild() {
+            return posts.get() > postCapacity
+                    || comments.get() > commentCapacity
+                    || removed.get() > (posts.get() + comments.get()) / 10;
+        }
+    }
+}
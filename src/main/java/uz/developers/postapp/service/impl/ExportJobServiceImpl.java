@@ -0,0 +1,173 @@
+package uz.developers.postapp.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uz.developers.postapp.exceptions.ExportException;
+import uz.developers.postapp.exceptions.ExportJobNotFoundException;
+import uz.developers.postapp.exceptions.ExportQueueFullException;
+import uz.developers.postapp.exceptions.PostException;
+import uz.developers.postapp.payload.ExportFormat;
+import uz.developers.postapp.payload.ExportJobDto;
+import uz.developers.postapp.payload.ExportJobRequest;
+import uz.developers.postapp.payload.ExportJobStatus;
+import uz.developers.postapp.payload.PostExportFilter;
+import uz.developers.postapp.service.ExportJobService;
+import uz.developers.postapp.service.PostDownloadService;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportJobServiceImpl implements ExportJobService {
+
+    // job files are named export-<job id>.<extension>, other files in the directory are left alone
+    private static final String FILE_PREFIX = "export-";
+
+    private final PostDownloadService postDownloadService;
+
+    private final ThreadPoolExecutor exportJobExecutor;
+
+    private final MeterRegistry meterRegistry;
+
+    // jobs are kept in memory only, their files outlive a restart until the retention cleanup
+    private final Map<String, ExportJobDto> jobs = new ConcurrentHashMap<>();
+
+    @Value("${app.export.directory:download posts}")
+    private Path directory;
+
+    @Value("${app.export.retention:24h}")
+    private Duration retention;
+
+    @PostConstruct
+    public void createDirectory() throws IOException {
+        Files.createDirectories(directory);
+    }
+
+    // Stops the workers while the database is still available. Running jobs are interrupted
+    // and fail, their partial files are removed.
+    @PreDestroy
+    public void stopWorkers() throws InterruptedException {
+        exportJobExecutor.shutdownNow();
+        exportJobExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public ExportJobDto submitJob(ExportJobRequest request) {
+        ExportFormat format = request.getFormat() == null ? ExportFormat.CSV : request.getFormat();
+        PostExportFilter filter = request.getFilter() == null ? PostExportFilter.all() : request.getFilter();
+        if (filter.getKeyword() != null && filter.getKeyword().isBlank()) {
+            throw new PostException("Search keyword must not be empty");
+        }
+
+        ExportJobDto job = new ExportJobDto(UUID.randomUUID().toString(), format, filter);
+        jobs.put(job.getId(), job);
+        try {
+            exportJobExecutor.execute(() -> runJob(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new ExportQueueFullException("Too many exports are in progress, please try again later");
+        }
+        return job;
+    }
+
+    @Override
+    public ExportJobDto getJob(String jobId) {
+        ExportJobDto job = jobs.get(jobId);
+        if (job == null) {
+            throw new ExportJobNotFoundException("Export job not found: " + jobId);
+        }
+        return job;
+    }
+
+    @Override
+    public Path getJobFile(String jobId) {
+        ExportJobDto job = getJob(jobId);
+        if (job.getStatus() != ExportJobStatus.DONE) {
+            throw new ExportException("Export job " + jobId + " is " + job.getStatus().name().toLowerCase() + ", its file is not available");
+        }
+        Path file = directory.resolve(fileName(job));
+        if (!Files.exists(file)) {
+            jobs.remove(jobId);
+            throw new ExportJobNotFoundException("Export job not found: " + jobId);
+        }
+        return file;
+    }
+
+    private void runJob(ExportJobDto job) {
+        job.setStatus(ExportJobStatus.RUNNING);
+        job.setStartedAt(Instant.now());
+        // rendered under a temporary name, so a half written file is never served
+        Path partFile = directory.resolve(fileName(job) + ".part");
+        try {
+            job.setTotalRows(postDownloadService.countExportRows(job.getFilter()));
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partFile))) {
+                postDownloadService.renderExport(job.getFormat(), job.getFilter(), out, job::setRowsWritten);
+            }
+            Path file = Files.move(partFile, directory.resolve(fileName(job)), StandardCopyOption.ATOMIC_MOVE);
+            job.setFileSize(Files.size(file));
+            Counter.builder("exports.bytes")
+                    .description("Bytes of exported documents")
+                    .baseUnit("bytes")
+                    .tag("format", job.getFormat().getExtension())
+                    .tag("kind", "job")
+                    .register(meterRegistry)
+                    .increment(job.getFileSize());
+            job.setStatus(ExportJobStatus.DONE);
+        } catch (Exception e) {
+            log.warn("Export job {} failed", job.getId(), e);
+            deleteQuietly(partFile);
+            job.setError(e.getMessage());
+            job.setStatus(ExportJobStatus.FAILED);
+        } finally {
+            job.setFinishedAt(Instant.now());
+        }
+    }
+
+    // deletes job files older than the retention period, together with their jobs
+    @Scheduled(fixedDelayString = "${app.export.cleanup-interval:PT1H}")
+    public void deleteExpiredJobs() throws IOException {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*")) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    deleteQuietly(file);
+                }
+            }
+        }
+    }
+
+    private String fileName(ExportJobDto job) {
+        return FILE_PREFIX + job.getId() + "." + job.getFormat().getExtension();
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete export file {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package uz.developers.postapp.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uz.developers.postapp.exceptions.ImageNotFoundException;
+import uz.developers.postapp.payload.ImageFormat;
+import uz.developers.postapp.payload.ImageRendition;
+import uz.developers.postapp.service.ImageRenditionService;
+import uz.developers.postapp.service.ImageStorageService;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the renditions of stored images on the imageRenditionExecutor pool. Each task
+ * decodes an image once and renders all of its renditions; images are rendered in parallel.
+ * When the queue is full a request for renditions is dropped, its rendition URLs serve the
+ * image until it is requested again or reprocessed (see ImageReprocessRunner).
+ * <p>
+ * Large images are subsampled while they are decoded, to twice the largest rendition, so a
+ * worker never holds the full resolution bitmap. They are then halved step by step, which
+ * keeps bilinear scaling from aliasing.
+ * <p>
+ * Renditions are rendered again under the same name when images are reprocessed, e.g. with
+ * another quality, so unlike images they are validated by a hash of their contents. The hash
+ * is kept until the file's size or modification time changes.
+ * <p>
+ * Meters: images.renditions (tagged rendered, rejected or failed) and images.render.
+ */
+@Slf4j
+@Service
+public class ImageRenditionServiceImpl implements ImageRenditionService {
+
+    private static final int LARGEST_RENDITION = Arrays.stream(ImageRendition.values())
+            .mapToInt(ImageRendition::getMaxSize)
+            .max()
+            .orElseThrow();
+
+    private final ImageStorageService imageStorageService;
+
+    private final ThreadPoolExecutor imageRenditionExecutor;
+
+    private final float quality;
+
+    // images queued or being rendered, so repeated requests do not queue them twice
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    // images that could not be decoded are only tried again when reprocessed
+    private final Cache<String, Boolean> failed = Caffeine.newBuilder().maximumSize(10_000).build();
+
+    private final Cache<Path, FileETag> etags = Caffeine.newBuilder().maximumSize(10_000).build();
+
+    private final Counter renderedCounter;
+
+    private final Counter rejectedCounter;
+
+    private final Counter failedCounter;
+
+    private final Timer renderTimer;
+
+    public ImageRenditionServiceImpl(
+            ImageStorageService imageStorageService,
+            ThreadPoolExecutor imageRenditionExecutor,
+            @Value("${app.images.renditions.quality:0.8}") float quality,
+            MeterRegistry meterRegistry) {
+        this.imageStorageService = imageStorageService;
+        this.imageRenditionExecutor = imageRenditionExecutor;
+        this.quality = quality;
+        this.renderedCounter = renditionsCounter(meterRegistry, "rendered");
+        this.rejectedCounter = renditionsCounter(meterRegistry, "rejected");
+        this.failedCounter = renditionsCounter(meterRegistry, "failed");
+        this.renderTimer = Timer.builder("images.render")
+                .description("Time to decode an image and render its renditions")
+                .register(meterRegistry);
+        // the image is decoded from a file, ImageIO needs no cache file of its own
+        ImageIO.setUseCache(false);
+    }
+
+    @PreDestroy
+    public void stopWorkers() throws InterruptedException {
+        imageRenditionExecutor.shutdownNow();
+        imageRenditionExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public boolean requestRenditions(String imageName) {
+        if (failed.getIfPresent(imageName) != null || !needsRenditions(imageName) || !pending.add(imageName)) {
+            return true;
+        }
+        try {
+            imageRenditionExecutor.execute(() -> render(imageName, false, true));
+            return true;
+        } catch (RejectedExecutionException e) {
+            pending.remove(imageName);
+            rejectedCounter.increment();
+            log.debug("Rendition queue is full, renditions of {} are not rendered now", imageName);
+            return false;
+        }
+    }
+
+    // Back-pressure for bulk work: once the queue is full the caller renders itself, which
+    // slows it down to the pace of the workers. An image a request already queued is left to
+    // that task, unless its existing renditions are to be replaced, which that task would skip.
+    @Override
+    public Future<?> renderRenditions(String imageName, boolean replace) {
+        if (!replace && !needsRenditions(imageName)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        boolean added = pending.add(imageName);
+        if (!added && !replace) {
+            return CompletableFuture.completedFuture(null);
+        }
+        FutureTask<Void> task = new FutureTask<>(() -> render(imageName, replace, added), null);
+        try {
+            imageRenditionExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+        return task;
+    }
+
+    @Override
+    public Path getRenditionFile(String renditionName) {
+        Path file = imageStorageService.imageFile(renditionName);
+        if (Files.isRegularFile(file)) {
+            return file;
+        }
+        String hash = ImageRendition.imageHash(renditionName);
+        for (ImageFormat format : ImageFormat.values()) {
+            String imageName = hash + "." + format.getExtension();
+            Path image = imageStorageService.imageFile(imageName);
+            if (Files.isRegularFile(image)) {
+                requestRenditions(imageName);
+                return image;
+            }
+        }
+        throw new ImageNotFoundException("Image not found: " + renditionName);
+    }
+
+    @Override
+    public String getRenditionETag(Path renditionFile) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(renditionFile, BasicFileAttributes.class);
+        FileETag etag = etags.getIfPresent(renditionFile);
+        if (etag == null || etag.size() != attributes.size() || !etag.modified().equals(attributes.lastModifiedTime())) {
+            etag = new FileETag(attributes.size(), attributes.lastModifiedTime(), "\"" + sha256(renditionFile) + "\"");
+            etags.put(renditionFile, etag);
+        }
+        return etag.value();
+    }
+
+    private boolean needsRenditions(String imageName) {
+        for (ImageRendition rendition : ImageRendition.values()) {
+            String renditionName = rendition.nameFor(imageName);
+            if (renditionName != null && !Files.exists(imageStorageService.imageFile(renditionName))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // removes the image from pending only if this task added it
+    private void render(String imageName, boolean replace, boolean added) {
+        Timer.Sample sample = Timer.start();
+        try {
+            renderAll(imageName, replace);
+            failed.invalidate(imageName);
+        } catch (IOException | RuntimeException e) {
+            failed.put(imageName, Boolean.TRUE);
+            failedCounter.increment();
+            log.warn("Could not render the renditions of image {}", imageName, e);
+        } finally {
+            sample.stop(renderTimer);
+            if (added) {
+                pending.remove(imageName);
+            }
+        }
+    }
+
+    private void renderAll(String imageName, boolean replace) throws IOException {
+        BufferedImage image = null;
+        for (ImageRendition rendition : ImageRendition.values()) {
+            String renditionName = rendition.nameFor(imageName);
+            if (renditionName == null) {
+                continue;
+            }
+            Path target = imageStorageService.imageFile(renditionName);
+            if (!replace && Files.exists(target)) {
+                continue;
+            }
+            if (image == null) {
+                image = read(imageStorageService.getImageFile(imageName));
+            }
+            // written beside the target and moved in whole, so a reader never sees a partial file
+            Path partFile = Files.createTempFile(target.getParent(), renditionName, ".part");
+            try {
+                writeJpeg(scale(image, rendition.getMaxSize()), partFile);
+                Files.move(partFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(partFile);
+            }
+            renderedCounter.increment();
+        }
+    }
+
+    private static BufferedImage read(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("No decoder for " + file.getFileName());
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longestSide / (2 * LARGEST_RENDITION));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Fits the image in maxSize x maxSize, on white as JPEG has no transparency
+    static BufferedImage scale(BufferedImage image, int maxSize) {
+        int longestSide = Math.max(image.getWidth(), image.getHeight());
+        double ratio = Math.min(1.0, (double) maxSize / longestSide);
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    private void writeJpeg(BufferedImage image, Path file) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            // progressive: usually smaller, and shown at low detail before it is fully loaded
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private record FileETag(long size, FileTime modified, String value) {
+    }
+
+    private static Counter renditionsCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("images.renditions")
+                .description("Image renditions rendered, requests rejected by the full queue, and failed images")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
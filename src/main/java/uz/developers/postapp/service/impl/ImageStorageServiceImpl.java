@@ -0,0 +1,186 @@
+package uz.developers.postapp.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import uz.developers.postapp.exceptions.ImageException;
+import uz.developers.postapp.exceptions.ImageNotFoundException;
+import uz.developers.postapp.payload.ImageFormat;
+import uz.developers.postapp.payload.ImageRendition;
+import uz.developers.postapp.service.ImageStorageService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Post images on local disk, content addressed: an image is named after the SHA-256 of its
+ * bytes, so the same image uploaded for many posts is stored once and a stored image never
+ * changes. Files are spread over subdirectories named after the first two hex digits, the
+ * renditions of an image (see ImageRenditionService) are stored beside it.
+ * <p>
+ * Uploads are never held in memory: the multipart part is already on disk (Tomcat writes
+ * parts above spring.servlet.multipart.file-size-threshold there), it is read once to hash
+ * it and then moved into the store.
+ * <p>
+ * Meters: images.stored, tagged new or duplicate.
+ */
+@Slf4j
+@Service
+public class ImageStorageServiceImpl implements ImageStorageService {
+
+    private static final Pattern IMAGE_NAME = Pattern.compile("[0-9a-f]{64}(-[a-z]+)?\\.(jpg|png|gif|webp)");
+
+    private static final String UPLOAD_PREFIX = "upload-";
+
+    private final Path directory;
+
+    private final Counter newCounter;
+
+    private final Counter duplicateCounter;
+
+    public ImageStorageServiceImpl(
+            @Value("${app.images.directory:post images}") Path directory,
+            MeterRegistry meterRegistry) throws IOException {
+        this.directory = directory.toAbsolutePath();
+        this.newCounter = storedCounter(meterRegistry, "new");
+        this.duplicateCounter = storedCounter(meterRegistry, "duplicate");
+        Files.createDirectories(this.directory);
+        // uploads a previous run did not get to move into the store
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(this.directory, UPLOAD_PREFIX + "*")) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+    }
+
+    @Override
+    public String storeImage(MultipartFile image) throws IOException {
+        if (image == null || image.isEmpty()) {
+            throw new ImageException("Image must not be empty");
+        }
+        return store(image, image::transferTo, image.getSize());
+    }
+
+    @Override
+    public String storeImage(Path file) throws IOException {
+        if (Files.size(file) == 0) {
+            throw new ImageException("Image must not be empty");
+        }
+        return store(() -> Files.newInputStream(file), target -> Files.copy(file, target), Files.size(file));
+    }
+
+    // The source is read once to hash it, and only written to the store if it is not there yet
+    private String store(InputStreamSource source, ImageWriter writer, long size) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] head = new byte[ImageFormat.SIGNATURE_LENGTH];
+        int headLength = 0;
+        try (InputStream in = source.getInputStream()) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (headLength < head.length) {
+                    int copied = Math.min(read, head.length - headLength);
+                    System.arraycopy(buffer, 0, head, headLength, copied);
+                    headLength += copied;
+                }
+                digest.update(buffer, 0, read);
+            }
+        }
+        ImageFormat format = ImageFormat.detect(head, headLength);
+        if (format == null) {
+            throw new ImageException("Image must be a JPEG, PNG, GIF or WebP file");
+        }
+
+        String name = HexFormat.of().formatHex(digest.digest()) + "." + format.getExtension();
+        Path file = imageFile(name);
+        if (Files.exists(file)) {
+            duplicateCounter.increment();
+            return name;
+        }
+        Files.createDirectories(file.getParent());
+        // moved in whole, so a reader never sees a partial file; two uploads of the
+        // same image may race, either one's file is the right content
+        Path uploadFile = directory.resolve(UPLOAD_PREFIX + UUID.randomUUID());
+        try {
+            writer.writeTo(uploadFile);
+            Files.move(uploadFile, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(uploadFile);
+        }
+        newCounter.increment();
+        log.info("Stored image {} ({} bytes)", name, size);
+        return name;
+    }
+
+    @Override
+    public Path getImageFile(String name) {
+        Path file = imageFile(name);
+        if (!Files.isRegularFile(file)) {
+            throw new ImageNotFoundException("Image not found: " + name);
+        }
+        return file;
+    }
+
+    // <directory>/<first two hex digits>/<name>
+    @Override
+    public Path imageFile(String name) {
+        if (name == null || !IMAGE_NAME.matcher(name).matches()) {
+            throw new ImageNotFoundException("Image not found: " + name);
+        }
+        return directory.resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    @Override
+    public List<String> listImages() throws IOException {
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> IMAGE_NAME.matcher(name).matches() && ImageRendition.fromName(name) == null)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @Override
+    public String imageName(String url) {
+        if (url == null || !url.startsWith(IMAGE_PATH)) {
+            return null;
+        }
+        String name = url.substring(IMAGE_PATH.length());
+        return IMAGE_NAME.matcher(name).matches() && ImageRendition.fromName(name) == null ? name : null;
+    }
+
+    @FunctionalInterface
+    private interface ImageWriter {
+        void writeTo(Path target) throws IOException;
+    }
+
+    private static Counter storedCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("images.stored")
+                .description("Uploaded images, stored new or found already stored")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -4,63 +4,144 @@ import com.itextpdf.text.Document;
 import com.itextpdf.text.DocumentException;
 import com.itextpdf.text.Paragraph;
 import com.itextpdf.text.pdf.PdfWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import uz.developers.postapp.entity.Post;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.ServletWebRequest;
+import uz.developers.postapp.exceptions.PostException;
+import uz.developers.postapp.exceptions.ResourceNotFoundException;
+import uz.developers.postapp.payload.CachedDocument;
+import uz.developers.postapp.payload.ExportFormat;
+import uz.developers.postapp.payload.PostDto;
+import uz.developers.postapp.payload.PostExportFilter;
+import uz.developers.postapp.payload.PostExportRow;
 import uz.developers.postapp.repository.PostRepository;
+import uz.developers.postapp.service.DocumentCacheService;
 import uz.developers.postapp.service.PostDownloadService;
+import uz.developers.postapp.service.PostService;
+import uz.developers.postapp.utils.CsvWriter;
+import uz.developers.postapp.utils.FileRangeSender;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.Optional;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class PostDownloadServiceImpl implements PostDownloadService {
 
+    private static final String[] EXPORT_HEADER = {"Title", "Category", "User", "Content", "Date"};
+
+    // goes through the post cache, so popular posts are exported without a DB round trip
+    private final PostService postService;
+
     private final PostRepository postRepository;
 
+    private final DocumentCacheService documentCacheService;
+
+    private final MeterRegistry meterRegistry;
+
+    // rows kept in memory per sheet while streaming an Excel export, older ones are flushed to disk
+    @Value("${app.export.excel.row-window:100}")
+    private int excelRowWindow;
+
+
+    @Override
+    public void generatePDF(Long postId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        sendPostDocument(postId, ExportFormat.PDF, request, response);
+    }
+
+    @Override
+    public void generateExcel(Long postId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        sendPostDocument(postId, ExportFormat.EXCEL, request, response);
+    }
 
     @Override
-    public void generatePDF(Long postId, HttpServletResponse response) throws IOException, DocumentException {
-        Optional<Post> postOpt = postRepository.findById(postId);
-        if (postOpt.isEmpty()) {
-            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Post not found");
-            return;
+    public void generateCSV(Long postId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        sendPostDocument(postId, ExportFormat.CSV, request, response);
+    }
+
+    // Documents are rendered once per post content and then served from the disk cache.
+    // Clients revalidate with If-None-Match and get a 304 while the document is unchanged.
+    private void sendPostDocument(Long postId, ExportFormat format, HttpServletRequest request,
+                                  HttpServletResponse response) throws IOException {
+        PostDto post = postService.getPostById(postId)
+                .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
+        CachedDocument document = documentCacheService.getDocument(postId, format, contentHash(post),
+                out -> renderPost(format, post, out));
+
+        try {
+            response.setHeader("Cache-Control", "no-cache");
+            if (new ServletWebRequest(request, response).checkNotModified(document.getEtag())) {
+                return;
+            }
+            // not by sendfile: the connector would read the file after the lease is released,
+            // when an eviction may already have deleted it
+            FileRangeSender.send(document.getFile(), document.getEtag(), format.getContentType(),
+                    "post_" + postId + "." + format.getExtension(), request, response, false);
+        } finally {
+            documentCacheService.release(document);
+        }
+    }
+
+    // hash of everything a post document shows
+    private static String contentHash(PostDto post) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object field : new Object[]{post.getTitle(), post.getCategoryTitle(), post.getUserName(), post.getContent(), post.getDate()}) {
+                digest.update(String.valueOf(field).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void renderPost(ExportFormat format, PostDto post, OutputStream out) throws IOException, DocumentException {
+        switch (format) {
+            case PDF -> writePostPDF(post, out);
+            case EXCEL -> writePostExcel(post, out);
+            case CSV -> writePostCSV(post, out);
         }
-        Post post = postOpt.get();
-        response.setContentType("application/pdf");
-        response.setHeader("Content-Disposition", "attachment; filename=\"post_" + postId + ".pdf\"");
+    }
 
+    private void writePostPDF(PostDto post, OutputStream out) throws DocumentException {
         Document document = new Document();
-        PdfWriter.getInstance(document, response.getOutputStream());
+        PdfWriter.getInstance(document, out);
         document.open();
 
         document.add(new Paragraph("Post Details"));
         document.add(new Paragraph(" "));
         document.add(new Paragraph("Title: " + post.getTitle()));
-        document.add(new Paragraph("Category: " + post.getCategory().getTitle()));
-        document.add(new Paragraph("User: " + post.getUser().getName()));
+        document.add(new Paragraph("Category: " + post.getCategoryTitle()));
+        document.add(new Paragraph("User: " + post.getUserName()));
         document.add(new Paragraph("Content: " + post.getContent()));
         document.add(new Paragraph("Date: " + post.getDate()));
 
         document.close();
     }
 
-    @Override
-    public void generateExcel(Long postId, HttpServletResponse response) throws IOException {
-        Optional<Post> postOpt = postRepository.findById(postId);
-        if (postOpt.isEmpty()) {
-            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Post not found");
-            return;
-        }
-        Post post = postOpt.get();
-
+    private void writePostExcel(PostDto post, OutputStream out) throws IOException {
         Workbook workbook = new XSSFWorkbook();
         Sheet sheet = workbook.createSheet("Post Details");
 
@@ -72,36 +153,227 @@ public class PostDownloadServiceImpl implements PostDownloadService {
         header.createCell(4).setCellValue("Date");
 
         Row row = sheet.createRow(1);
-        row.createCell(0).setCellValue(post.getTitle());
-        row.createCell(1).setCellValue(post.getCategory().getTitle());
-        row.createCell(2).setCellValue(post.getUser().getName());
-        row.createCell(3).setCellValue(post.getContent());
+        row.createCell(0).setCellValue(cellText(post.getTitle()));
+        row.createCell(1).setCellValue(cellText(post.getCategoryTitle()));
+        row.createCell(2).setCellValue(cellText(post.getUserName()));
+        row.createCell(3).setCellValue(cellText(post.getContent()));
         row.createCell(4).setCellValue(post.getDate().toString());
 
-        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
-        response.setHeader("Content-Disposition", "attachment; filename=\"post_" + postId + ".xlsx\"");
-
-        workbook.write(response.getOutputStream());
+        workbook.write(out);
         workbook.close();
     }
 
+    private void writePostCSV(PostDto post, OutputStream out) throws IOException {
+        try (CsvWriter csv = new CsvWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            csv.writeRow((Object[]) EXPORT_HEADER);
+            csv.writeRow(post.getTitle(), post.getCategoryTitle(), post.getUserName(), post.getContent(), post.getDate());
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportCSV(PostExportFilter filter, HttpServletResponse response) throws IOException {
+        response.setContentType(ExportFormat.CSV.getContentType());
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + filter.fileName() + ".csv\"");
+
+        // No Content-Length: the body goes out chunked as the buffers fill up
+        try (CountingOutputStream out = new CountingOutputStream(response.getOutputStream(), ExportFormat.CSV)) {
+            writeCSV(filter, out, rows -> { });
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportExcel(PostExportFilter filter, HttpServletResponse response) throws IOException {
+        response.setContentType(ExportFormat.EXCEL.getContentType());
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + filter.fileName() + ".xlsx\"");
+
+        try (CountingOutputStream out = new CountingOutputStream(response.getOutputStream(), ExportFormat.EXCEL)) {
+            writeExcel(filter, out, rows -> { });
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void renderExport(ExportFormat format, PostExportFilter filter, OutputStream out, LongConsumer progress)
+            throws IOException, DocumentException {
+        switch (format) {
+            case CSV -> writeCSV(filter, out, progress);
+            case EXCEL -> writeExcel(filter, out, progress);
+            case PDF -> writePDF(filter, out, progress);
+        }
+    }
+
     @Override
-    public void generateCSV(Long postId, HttpServletResponse response) throws IOException {
-        Optional<Post> postOpt = postRepository.findById(postId);
-        if (postOpt.isEmpty()) {
-            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Post not found");
-            return;
-        }
-        Post post = postOpt.get();
-
-        response.setContentType("text/csv");
-        response.setHeader("Content-Disposition", "attachment; filename=\"post_" + postId + ".csv\"");
-
-        PrintWriter writer = response.getWriter();
-        writer.println("Title, Category, User, Content, Date");
-        writer.println(post.getTitle() + ", " + post.getCategory().getTitle() + ", " +
-                post.getUser().getName() + ", " + post.getContent() + ", " + post.getDate());
-        writer.flush();
-        writer.close();
+    public long countExportRows(PostExportFilter filter) {
+        if (filter.getCategoryId() != null) {
+            return postRepository.countByCategoryId(filter.getCategoryId());
+        }
+        if (filter.getUserId() != null) {
+            return postRepository.countByUserId(filter.getUserId());
+        }
+        if (filter.getKeyword() != null) {
+            return postRepository.countByText(filter.getKeyword());
+        }
+        return postRepository.count();
+    }
+
+    private void writeCSV(PostExportFilter filter, OutputStream out, LongConsumer progress) throws IOException {
+        try (Stream<PostExportRow> rows = streamExportRows(filter);
+             CsvWriter csv = new CsvWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            csv.writeRow((Object[]) EXPORT_HEADER);
+            long count = 0;
+            Iterator<PostExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                PostExportRow row = iterator.next();
+                csv.writeRow(row.getTitle(), row.getCategoryTitle(), row.getUserName(), row.getContent(), row.getDate());
+                progress.accept(++count);
+            }
+        }
+    }
+
+    private void writeExcel(PostExportFilter filter, OutputStream out, LongConsumer progress) throws IOException {
+        // Only the last excelRowWindow rows are held in memory, the rest goes to gzipped temp files
+        // (see ExportConfig). The workbook is zipped straight into the output stream when written.
+        SXSSFWorkbook workbook = new SXSSFWorkbook(excelRowWindow);
+        workbook.setCompressTempFiles(true);
+        try (Stream<PostExportRow> rows = streamExportRows(filter)) {
+            int maxRows = SpreadsheetVersion.EXCEL2007.getMaxRows();
+            Sheet sheet = null;
+            int rowIndex = maxRows;
+            long count = 0;
+            Iterator<PostExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                if (rowIndex == maxRows) {
+                    sheet = createExportSheet(workbook);
+                    rowIndex = 1;
+                }
+                PostExportRow post = iterator.next();
+                Row row = sheet.createRow(rowIndex++);
+                row.createCell(0).setCellValue(cellText(post.getTitle()));
+                row.createCell(1).setCellValue(cellText(post.getCategoryTitle()));
+                row.createCell(2).setCellValue(cellText(post.getUserName()));
+                row.createCell(3).setCellValue(cellText(post.getContent()));
+                row.createCell(4).setCellValue(post.getDate() == null ? null : post.getDate().toString());
+                progress.accept(++count);
+            }
+            if (sheet == null) {
+                createExportSheet(workbook);
+            }
+            workbook.write(out);
+        } finally {
+            // removes the temp files, also when the client went away halfway
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    // iText flushes finished pages to the stream, only the page being filled stays in memory
+    private void writePDF(PostExportFilter filter, OutputStream out, LongConsumer progress)
+            throws IOException, DocumentException {
+        try (Stream<PostExportRow> rows = streamExportRows(filter)) {
+            Document document = new Document();
+            PdfWriter.getInstance(document, out);
+            document.open();
+            document.add(new Paragraph("Posts"));
+
+            long count = 0;
+            Iterator<PostExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                PostExportRow post = iterator.next();
+                document.add(new Paragraph(" "));
+                document.add(new Paragraph("Title: " + post.getTitle()));
+                document.add(new Paragraph("Category: " + post.getCategoryTitle()));
+                document.add(new Paragraph("User: " + post.getUserName()));
+                document.add(new Paragraph("Content: " + post.getContent()));
+                document.add(new Paragraph("Date: " + post.getDate()));
+                progress.accept(++count);
+            }
+            if (count == 0) {
+                document.add(new Paragraph("No posts found."));
+            }
+            document.close();
+        }
+    }
+
+    // a new sheet is started whenever one reaches Excel's row limit
+    private Sheet createExportSheet(Workbook workbook) {
+        Sheet sheet = workbook.createSheet("Posts " + (workbook.getNumberOfSheets() + 1));
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < EXPORT_HEADER.length; i++) {
+            header.createCell(i).setCellValue(EXPORT_HEADER[i]);
+        }
+        return sheet;
+    }
+
+    // POI rejects cell text over Excel's limit, longer text is cut there instead of failing the export
+    private static String cellText(String text) {
+        int maxLength = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+        if (text == null || text.length() <= maxLength) {
+            return text;
+        }
+        int end = Character.isHighSurrogate(text.charAt(maxLength - 1)) ? maxLength - 1 : maxLength;
+        return text.substring(0, end);
+    }
+
+    private Stream<PostExportRow> streamExportRows(PostExportFilter filter) {
+        if (filter.getCategoryId() != null) {
+            return postRepository.streamExportRowsByCategoryId(filter.getCategoryId());
+        }
+        if (filter.getUserId() != null) {
+            return postRepository.streamExportRowsByUserId(filter.getUserId());
+        }
+        if (filter.getKeyword() != null) {
+            if (filter.getKeyword().isBlank()) {
+                throw new PostException("Search keyword must not be empty");
+            }
+            return postRepository.streamExportRowsByText(filter.getKeyword());
+        }
+        return postRepository.streamExportRows();
+    }
+
+    // Counts the bytes of a streamed export into exports.bytes when closed, also when the
+    // client went away halfway. Writes go straight through, so the count costs nothing per row.
+    private class CountingOutputStream extends FilterOutputStream {
+
+        private final ExportFormat format;
+
+        private long count;
+
+        private boolean closed;
+
+        CountingOutputStream(OutputStream out, ExportFormat format) {
+            super(out);
+            this.format = format;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // the CSV writer closes it first
+            if (closed) {
+                return;
+            }
+            closed = true;
+            Counter.builder("exports.bytes")
+                    .description("Bytes of exported documents")
+                    .baseUnit("bytes")
+                    .tag("format", format.getExtension())
+                    .tag("kind", "stream")
+                    .register(meterRegistry)
+                    .increment(count);
+            super.close();
+        }
     }
 }
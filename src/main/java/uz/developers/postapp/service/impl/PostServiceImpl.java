@@ -1,21 +1,54 @@
 package uz.developers.postapp.service.impl;
 
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+import uz.developers.postapp.config.CacheConfig;
+import uz.developers.postapp.entity.Category;
 import uz.developers.postapp.entity.Post;
+import uz.developers.postapp.entity.User;
 import uz.developers.postapp.exceptions.PostException;
 import uz.developers.postapp.exceptions.ResourceNotFoundException;
 import uz.developers.postapp.exceptions.UserException;
+import uz.developers.postapp.mapper.PostMapper;
+import uz.developers.postapp.payload.CursorPage;
+import uz.developers.postapp.payload.PostBatchItemResult;
+import uz.developers.postapp.payload.PostBatchItemStatus;
+import uz.developers.postapp.payload.PostCursor;
 import uz.developers.postapp.payload.PostDto;
+import uz.developers.postapp.payload.PostTitleFingerprint;
 import uz.developers.postapp.repository.CategoryRepository;
 import uz.developers.postapp.repository.PostRepository;
 import uz.developers.postapp.repository.UserRepository;
+import uz.developers.postapp.service.DocumentCacheService;
+import uz.developers.postapp.service.DuplicateCheckService;
+import uz.developers.postapp.service.ImageRenditionService;
+import uz.developers.postapp.service.ImageStorageService;
 import uz.developers.postapp.service.PostService;
+import uz.developers.postapp.utils.ContentFingerprint;
+
+import java.io.IOException;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.apache.batik.svggen.font.table.Table.post;
 
@@ -23,15 +56,29 @@ import static org.apache.batik.svggen.font.table.Table.post;
 @RequiredArgsConstructor
 public class PostServiceImpl implements PostService {
 
-    private final ModelMapper modelMapper;
+    private static final int MAX_SCROLL_SIZE = 100;
+
+    // length of the title column
+    private static final int MAX_TITLE_LENGTH = 100;
+
+    private final PostMapper postMapper;
     private final PostRepository postRepository;
     private final CategoryRepository categoryRepository;
+    private final UserRepository userRepository;
+    private final DocumentCacheService documentCacheService;
+    private final DuplicateCheckService duplicateCheckService;
+    private final ImageStorageService imageStorageService;
+    private final ImageRenditionService imageRenditionService;
+
+    @Value("${app.posts.batch.max-size:500}")
+    private int maxBatchSize;
 
     //get all posts by category
     @Override
+    @Transactional(readOnly = true)
     public Page<PostDto> getPostsByCategory(Long categoryId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Post> postsPage = categoryRepository.findByCategoryId(categoryId, pageable);
+        Page<Post> postsPage = postRepository.findByCategoryId(categoryId, pageable);
         if (postsPage.isEmpty()) {
             throw new ResourceNotFoundException("Posts", "Category ID", categoryId);
         }
@@ -41,6 +88,7 @@ public class PostServiceImpl implements PostService {
 
     //get all posts by user
     @Override
+    @Transactional(readOnly = true)
     public Page<PostDto> getPostsByUser(Long userId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
         Page<Post> postsPage = postRepository.findByUserId(userId, pageable);
@@ -50,26 +98,75 @@ public class PostServiceImpl implements PostService {
         return postsPage.map(this::postToDto);
     }
 
-    //search posts
+    //search posts, ranked by relevance
     @Override
-    public Page<PostDto> searchPosts(String keyword, int page, int size) {
+    @Transactional(readOnly = true)
+    public Slice<PostDto> searchPosts(String keyword, int page, int size) {
+        if (keyword == null || keyword.isBlank()) {
+            throw new PostException("Search keyword must not be empty");
+        }
         Pageable pageable = PageRequest.of(page, size);
-        Page<Post> postsPage = postRepository.searchByTitleOrContent(keyword, pageable);
-        if (postsPage.isEmpty()) {
+        Slice<Long> idsSlice = postRepository.searchIdsByText(keyword, pageable);
+        if (idsSlice.isEmpty()) {
             throw new ResourceNotFoundException("Posts", "Keyword", keyword.hashCode());
         }
-        return postsPage.map(this::postToDto);
+        Map<Long, Post> postsById = postRepository.findAllWithCategoryAndUserByIdIn(idsSlice.getContent()).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        // keep the relevance order of the id query
+        List<PostDto> postDtos = idsSlice.stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
+                .map(this::postToDto)
+                .toList();
+        return new SliceImpl<>(postDtos, pageable, idsSlice.hasNext());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<PostDto> getAllPosts(int page, int size) {
         Page<Post> postsPage = postRepository.findAll(PageRequest.of(page, size));
         return postsPage.map(this::postToDto);
     }
 
+    //scroll posts by cursor, newest first
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<PostDto> scrollPosts(String cursor, int size) {
+        Pageable pageable = scrollRequest(size);
+        if (cursor == null || cursor.isBlank()) {
+            return toCursorPage(postRepository.findFirstSlice(pageable));
+        }
+        PostCursor after = PostCursor.decode(cursor);
+        return toCursorPage(postRepository.findSliceBefore(after.getDate(), after.getId(), pageable));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<PostDto> scrollPostsByUser(Long userId, String cursor, int size) {
+        Pageable pageable = scrollRequest(size);
+        if (cursor == null || cursor.isBlank()) {
+            return toCursorPage(postRepository.findFirstSliceByUserId(userId, pageable));
+        }
+        PostCursor after = PostCursor.decode(cursor);
+        return toCursorPage(postRepository.findSliceByUserIdBefore(userId, after.getDate(), after.getId(), pageable));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<PostDto> scrollPostsByCategory(Long categoryId, String cursor, int size) {
+        Pageable pageable = scrollRequest(size);
+        if (cursor == null || cursor.isBlank()) {
+            return toCursorPage(postRepository.findFirstSliceByCategoryId(categoryId, pageable));
+        }
+        PostCursor after = PostCursor.decode(cursor);
+        return toCursorPage(postRepository.findSliceByCategoryIdBefore(categoryId, after.getDate(), after.getId(), pageable));
+    }
+
+    // Not read-only: the cache is only evicted on writes, so it must not be filled from a lagging replica
     @Override
+    @Cacheable(cacheNames = CacheConfig.POSTS_CACHE, key = "#id")
     public Optional<PostDto> getPostById(Long id) {
-        Post post = postRepository.findById(id)
+        Post post = postRepository.findWithCategoryAndUserById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Post", "id", id));
         return Optional.of(postToDto(post));
     }
@@ -80,33 +177,183 @@ public class PostServiceImpl implements PostService {
         if (post.getTitle() == null || post.getContent() == null) {
             throw new PostException("Post title content must not be null");
         }
-        boolean exists = postRepository.existsByTitleOrContent(post.getTitle(), post.getContent());
-        if (exists) {
+        // keyset pagination orders by date, so every post needs one
+        if (post.getDate() == null) {
+            post.setDate(new Date(System.currentTimeMillis()));
+        }
+        String fingerprint = ContentFingerprint.of(post.getContent());
+        if (duplicateCheckService.postExists(post.getTitle(), fingerprint)) {
             throw new PostException("Post with this title name and content already exists");
         }
-        Post savedPost = postRepository.save(post);
+        Post savedPost;
+        try {
+            savedPost = postRepository.save(post);
+        } catch (DataIntegrityViolationException e) {
+            // the same content was saved concurrently
+            if (duplicateCheckService.isDuplicateContent(e)) {
+                throw new PostException("Post with this title name and content already exists");
+            }
+            throw e;
+        }
+        duplicateCheckService.postSaved(savedPost.getContentFingerprint());
+        requestRenditions(savedPost.getImage());
         return postToDto(savedPost);
     }
 
+    // One query checks the whole batch for duplicates, one each loads its categories and users.
+    // The accepted posts are inserted on commit, in JDBC batches of hibernate.jdbc.batch_size.
+    @Override
+    @Transactional
+    public List<PostBatchItemResult> createPosts(List<PostDto> postDtos) {
+        if (postDtos == null || postDtos.isEmpty() || postDtos.size() > maxBatchSize) {
+            throw new PostException("A batch must contain between 1 and " + maxBatchSize + " posts");
+        }
+        Set<String> titles = new HashSet<>();
+        Set<String> fingerprints = new HashSet<>();
+        Set<Long> categoryIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        for (PostDto postDto : postDtos) {
+            if (postDto == null) {
+                continue;
+            }
+            addIfNotNull(titles, postDto.getTitle());
+            addIfNotNull(fingerprints, ContentFingerprint.of(postDto.getContent()));
+            addIfNotNull(categoryIds, postDto.getCategoryId());
+            addIfNotNull(userIds, postDto.getUserId());
+        }
+
+        // taken by existing posts, and then by the posts accepted from this batch
+        Set<String> takenTitles = new HashSet<>();
+        Set<String> takenFingerprints = new HashSet<>();
+        for (PostTitleFingerprint existing : duplicateCheckService.findExistingPosts(titles, fingerprints)) {
+            takenTitles.add(existing.getTitle());
+            takenFingerprints.add(existing.getContentFingerprint());
+        }
+        Map<Long, Category> categories = categoryRepository.findAllById(categoryIds).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        Date today = new Date(System.currentTimeMillis());
+        List<PostBatchItemResult> results = new ArrayList<>(postDtos.size());
+        Map<Integer, Post> accepted = new LinkedHashMap<>();
+        for (int index = 0; index < postDtos.size(); index++) {
+            PostDto postDto = postDtos.get(index);
+            String error = validateBatchItem(postDto, categories, users);
+            if (error != null) {
+                results.add(new PostBatchItemResult(index, PostBatchItemStatus.INVALID, null, error));
+                continue;
+            }
+            String fingerprint = ContentFingerprint.of(postDto.getContent());
+            if (takenTitles.contains(postDto.getTitle()) || takenFingerprints.contains(fingerprint)) {
+                results.add(new PostBatchItemResult(index, PostBatchItemStatus.DUPLICATE, null,
+                        "Post with this title name and content already exists"));
+                continue;
+            }
+            takenTitles.add(postDto.getTitle());
+            takenFingerprints.add(fingerprint);
+
+            Post post = dtoToPost(postDto);
+            post.setCategory(categories.get(postDto.getCategoryId()));
+            post.setUser(users.get(postDto.getUserId()));
+            if (post.getDate() == null) {
+                post.setDate(today);
+            }
+            accepted.put(index, post);
+            results.add(null);
+        }
+
+        // persist only assigns the ids, the inserts are flushed together
+        try {
+            postRepository.saveAllAndFlush(accepted.values());
+        } catch (DataIntegrityViolationException e) {
+            // some content was saved concurrently, the whole batch is rolled back
+            if (duplicateCheckService.isDuplicateContent(e)) {
+                throw new PostException("A post of the batch was created meanwhile, please retry the batch");
+            }
+            throw e;
+        }
+        accepted.forEach((index, post) -> {
+            duplicateCheckService.postSaved(post.getContentFingerprint());
+            requestRenditions(post.getImage());
+            results.set(index, new PostBatchItemResult(index, PostBatchItemStatus.CREATED, postToDto(post), null));
+        });
+        return results;
+    }
+
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.POSTS_CACHE, key = "#postId")
     public PostDto updatePost(Long postId, PostDto postDto, Long userId) {
-        Post existingPost = postRepository.findById(postId)
+        Post existingPost = postRepository.findWithCategoryAndUserById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
 
         if (!existingPost.getUser().getId().equals(userId)) {
             throw new UserException("You are not authorized to update this post");
         }
 
+        String fingerprint = ContentFingerprint.of(postDto.getContent());
+        if (fingerprint != null && !fingerprint.equals(existingPost.getContentFingerprint())
+                && duplicateCheckService.otherPostHasContent(postId, fingerprint)) {
+            throw new PostException("Post with this content already exists");
+        }
+
         existingPost.setTitle(postDto.getTitle());
         existingPost.setContent(postDto.getContent());
         existingPost.setImage(postDto.getImage());
-        existingPost.setDate(postDto.getDate());
+        // keyset pagination orders by date, an update without one keeps the post where it is
+        if (postDto.getDate() != null) {
+            existingPost.setDate(postDto.getDate());
+        }
+
+        // flushed, so the returned post carries the incremented version
+        Post updatedPost;
+        try {
+            updatedPost = postRepository.saveAndFlush(existingPost);
+        } catch (DataIntegrityViolationException e) {
+            // the same content was saved concurrently
+            if (duplicateCheckService.isDuplicateContent(e)) {
+                throw new PostException("Post with this content already exists");
+            }
+            throw e;
+        }
+        duplicateCheckService.postSaved(fingerprint);
+        // documents are keyed by content, this only frees the space of the old ones
+        documentCacheService.evictPost(postId);
+        requestRenditions(updatedPost.getImage());
+        return postToDto(updatedPost);
+    }
 
-        Post updatedPost = postRepository.save(existingPost);
+    // Not transactional: the image is written to the store without holding a JDBC connection,
+    // and only once the user is known to own the post
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.POSTS_CACHE, key = "#postId")
+    public PostDto updatePostImage(Long postId, MultipartFile image, Long userId) throws IOException {
+        Post post = postRepository.findWithCategoryAndUserById(postId)
+                .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
+
+        if (!post.getUser().getId().equals(userId)) {
+            throw new UserException("You are not authorized to update this post");
+        }
+
+        String name = imageStorageService.storeImage(image);
+        post.setImage(ImageStorageService.IMAGE_PATH + name);
+        Post updatedPost = postRepository.saveAndFlush(post);
+        imageRenditionService.requestRenditions(name);
         return postToDto(updatedPost);
     }
 
+    // A post may reference an image uploaded for another one, whose renditions may not be
+    // rendered yet; nothing is queued for images outside the store or already rendered
+    private void requestRenditions(String image) {
+        String name = imageStorageService.imageName(image);
+        if (name != null) {
+            imageRenditionService.requestRenditions(name);
+        }
+    }
+
     @Override
+    @CacheEvict(cacheNames = CacheConfig.POSTS_CACHE, key = "#postId")
     public void deletePost(Long postId, Long userId) {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post", "id", postId));
@@ -115,14 +362,55 @@ public class PostServiceImpl implements PostService {
             throw new UserException("You are not authorized to delete this post");
         }
         postRepository.delete(post);
+        duplicateCheckService.postDeleted();
+        documentCacheService.evictPost(postId);
+    }
+
+    // null if the post can be created, the reason otherwise
+    private String validateBatchItem(PostDto postDto, Map<Long, Category> categories, Map<Long, User> users) {
+        if (postDto == null || postDto.getTitle() == null || postDto.getContent() == null) {
+            return "Post title content must not be null";
+        }
+        if (postDto.getTitle().length() > MAX_TITLE_LENGTH) {
+            return "Post title must not be longer than " + MAX_TITLE_LENGTH + " characters";
+        }
+        if (postDto.getCategoryId() == null || !categories.containsKey(postDto.getCategoryId())) {
+            return "Category not found with id : " + postDto.getCategoryId();
+        }
+        if (postDto.getUserId() == null || !users.containsKey(postDto.getUserId())) {
+            return "User not found with id : " + postDto.getUserId();
+        }
+        return null;
+    }
+
+    private static <T> void addIfNotNull(Set<T> values, T value) {
+        if (value != null) {
+            values.add(value);
+        }
+    }
+
+    // Slice is fetched with size + 1 rows, so no count query is needed
+    private Pageable scrollRequest(int size) {
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            throw new PostException("Size must be between 1 and " + MAX_SCROLL_SIZE);
+        }
+        return PageRequest.of(0, size);
+    }
+
+    private CursorPage<PostDto> toCursorPage(Slice<Post> slice) {
+        List<PostDto> content = slice.map(this::postToDto).getContent();
+        String nextCursor = slice.hasNext() && !content.isEmpty()
+                ? PostCursor.of(content.get(content.size() - 1)).encode()
+                : null;
+        return new CursorPage<>(content, slice.getSize(), slice.hasNext(), nextCursor);
     }
 
     // DTO to Entity
     private Post dtoToPost(PostDto postDto){
-        return modelMapper.map(postDto, Post.class);
+        return postMapper.toEntity(postDto);
     }
     // Entity to DTO
     public PostDto postToDto(Post post){
-        return modelMapper.map(post, PostDto.class);
+        return postMapper.toDto(post);
     }
 }
@@ -0,0 +1,73 @@
+package uz.developers.postapp.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+import uz.developers.postapp.config.CacheConfig;
+import uz.developers.postapp.service.ResponseBodyCacheService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+@RequiredArgsConstructor
+public class ResponseBodyCacheServiceImpl implements ResponseBodyCacheService {
+
+    private final ObjectMapper objectMapper;
+
+    private final CacheManager cacheManager;
+
+    @Override
+    public boolean sendGzipped(String etag, Object body, ServletWebRequest webRequest) throws IOException {
+        HttpServletRequest request = webRequest.getRequest();
+        HttpServletResponse response = webRequest.getResponse();
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            return false;
+        }
+        // an ETag identifies a body only together with its resource
+        String key = request.getRequestURI() + "?" + request.getQueryString() + " " + etag;
+        Cache cache = cacheManager.getCache(CacheConfig.RESPONSE_BODIES_CACHE);
+        byte[] gzipped = cache.get(key, byte[].class);
+        if (gzipped == null) {
+            gzipped = gzip(objectMapper.writeValueAsBytes(body));
+            cache.put(key, gzipped);
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        response.setContentLength(gzipped.length);
+        response.getOutputStream().write(gzipped);
+        return true;
+    }
+
+    // "gzip" or "*" listed, and not with q=0
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                return parameters.length < 2 || !parameters[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
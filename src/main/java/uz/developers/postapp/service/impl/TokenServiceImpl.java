@@ -0,0 +1,182 @@
+package uz.developers.postapp.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uz.developers.postapp.exceptions.UserException;
+import uz.developers.postapp.payload.LoginResponse;
+import uz.developers.postapp.payload.UserDto;
+import uz.developers.postapp.service.TokenService;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A token is base64url(user id, expiry in epoch seconds, token version) "." base64url(HMAC-SHA256
+ * of those 20 bytes). Verifying it takes one HMAC and a lookup in {@link #minimumVersions}, which
+ * only holds the users whose tokens were revoked.
+ * <p>
+ * Revocations, deletions included, are recorded in the token_revocations table. They take effect
+ * on the node that made them once they commit, and on the others with their next
+ * {@link #refreshTokenVersions()}. A row is kept for one ttl: by then every token it rejects has
+ * expired anyway.
+ */
+@Slf4j
+@Service
+public class TokenServiceImpl implements TokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final int PAYLOAD_LENGTH = Long.BYTES + Long.BYTES + Integer.BYTES;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    // a version never goes down, not even when a later revocation of the same user carries a lower one
+    private static final String RECORD_REVOCATION = """
+            insert into token_revocations (user_id, min_version, revoked_at) values (?, ?, ?)
+            on conflict (user_id) do update
+            set min_version = greatest(token_revocations.min_version, excluded.min_version),
+                revoked_at = excluded.revoked_at""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Duration ttl;
+
+    private final Clock clock = Clock.systemUTC();
+
+    // Mac instances are not thread-safe; each token gets a clone of this initialized one
+    private final Mac prototype;
+
+    // tokens of these users are accepted only from this version on
+    private final Map<Long, Integer> minimumVersions = new ConcurrentHashMap<>();
+
+    public TokenServiceImpl(JdbcTemplate jdbcTemplate,
+                            @Value("${app.auth.token.secret}") String secret,
+                            @Value("${app.auth.token.ttl:PT1H}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = ttl;
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("app.auth.token.secret is not set: set AUTH_TOKEN_SECRET, "
+                    + "or activate the dev profile for local development");
+        }
+        byte[] key = secret.getBytes(StandardCharsets.UTF_8);
+        if (key.length < 32) {
+            throw new IllegalStateException("app.auth.token.secret must be at least 32 bytes long");
+        }
+        try {
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(new SecretKeySpec(key, ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+
+    @Override
+    public LoginResponse issueToken(UserDto user, int tokenVersion) {
+        Instant expiresAt = clock.instant().plus(ttl);
+        byte[] payload = ByteBuffer.allocate(PAYLOAD_LENGTH)
+                .putLong(user.getId())
+                .putLong(expiresAt.getEpochSecond())
+                .putInt(tokenVersion)
+                .array();
+        String token = ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(sign(payload));
+        return new LoginResponse(user, token, expiresAt);
+    }
+
+    @Override
+    public Long verifyToken(String token) {
+        int dot = token.indexOf('.');
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, Math.max(dot, 0)));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new UserException("Invalid token");
+        }
+        // constant time, so the signature cannot be guessed byte by byte
+        if (dot < 0 || payload.length != PAYLOAD_LENGTH || !MessageDigest.isEqual(sign(payload), signature)) {
+            throw new UserException("Invalid token");
+        }
+        ByteBuffer fields = ByteBuffer.wrap(payload);
+        long userId = fields.getLong();
+        long expiresAt = fields.getLong();
+        int tokenVersion = fields.getInt();
+        if (clock.instant().getEpochSecond() >= expiresAt) {
+            throw new UserException("Token has expired");
+        }
+        if (isRevoked(userId, tokenVersion)) {
+            throw new UserException("Token has been revoked");
+        }
+        return userId;
+    }
+
+    @Override
+    public boolean isRevoked(Long userId, int tokenVersion) {
+        return tokenVersion < minimumVersions.getOrDefault(userId, 0);
+    }
+
+    // Inside a transaction the map is only updated once it commits: if the user change rolls
+    // back, the new version must not reject the tokens issued with the old one
+    @Override
+    public void revokeTokens(Long userId, int tokenVersion) {
+        jdbcTemplate.update(RECORD_REVOCATION, userId, tokenVersion, Timestamp.from(clock.instant()));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            minimumVersions.merge(userId, tokenVersion, Math::max);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                minimumVersions.merge(userId, tokenVersion, Math::max);
+            }
+        });
+    }
+
+    @Override
+    public void userDeleted(Long userId) {
+        revokeTokens(userId, Integer.MAX_VALUE);
+    }
+
+    // Versions only grow, so merging with max never undoes a revocation this node already knows of.
+    // Entries whose row was purged stay in the map; they only reject tokens that have expired.
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.auth.token.versions-refresh-interval:PT30S}",
+            initialDelayString = "${app.auth.token.versions-refresh-interval:PT30S}")
+    public void refreshTokenVersions() {
+        int purged = jdbcTemplate.update("delete from token_revocations where revoked_at < ?",
+                Timestamp.from(clock.instant().minus(ttl)));
+        jdbcTemplate.query("select user_id, min_version from token_revocations",
+                (RowCallbackHandler) row -> minimumVersions.merge(row.getLong(1), row.getInt(2), Math::max));
+        log.debug("Token revocations of {} users loaded, {} expired ones purged", minimumVersions.size(), purged);
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            return ((Mac) prototype.clone()).doFinal(payload);
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(ALGORITHM + " cannot be cloned", e);
+        }
+    }
+}
@@ -1,34 +1,42 @@
 package uz.developers.postapp.service.impl;
 
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import uz.developers.postapp.config.CacheConfig;
 import uz.developers.postapp.entity.User;
 import uz.developers.postapp.exceptions.ResourceNotFoundException;
 import uz.developers.postapp.exceptions.UserException;
+import uz.developers.postapp.mapper.UserMapper;
+import uz.developers.postapp.payload.LoginResponse;
 import uz.developers.postapp.payload.UserDto;
 import uz.developers.postapp.repository.UserRepository;
+import uz.developers.postapp.service.TokenService;
 import uz.developers.postapp.service.UserService;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Optional;
 
-import static java.util.regex.Pattern.matches;
-
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
     private final UserRepository userRepository;
+    private final TokenService tokenService;
 
     @Override
+    @Transactional(readOnly = true)
     public Page<UserDto> getAllUsers(int page, int size) {
         Page<User> usersPage = userRepository.findAll(PageRequest.of(page, size));
         return usersPage.map(this::userToDto);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<UserDto> getUserById(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", " Id ", userId));
@@ -36,13 +44,15 @@ public class UserServiceImpl implements UserService {
     }
     // Login
     @Override
-    public UserDto loginUser(String email, String password) {
+    public LoginResponse loginUser(String email, String password) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UserException("User not found with this email"));
-        if (!matches(password, user.getPassword())) {
+        // compared as plain bytes in constant time; the login issues a token, so no pattern may match
+        if (password == null || !MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                user.getPassword().getBytes(StandardCharsets.UTF_8))) {
             throw new UserException("Invalid credentials");
         }
-        return userToDto(user);
+        return tokenService.issueToken(userToDto(user), user.getTokenVersion());
     }
 
     // Register
@@ -60,7 +70,11 @@ public class UserServiceImpl implements UserService {
         return userToDto(savedUser);
     }
 
+    // cached posts carry the user name, cached credentials carry the password,
+    // tokens issued before the update are revoked in the same transaction
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.POSTS_CACHE, CacheConfig.CREDENTIALS_CACHE}, allEntries = true)
     public UserDto updateUser(Long userId, UserDto userDto) {
         User existingUser = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", " Id ", userId));
@@ -68,24 +82,30 @@ public class UserServiceImpl implements UserService {
         existingUser.setName(userDetails.getName());
         existingUser.setEmail(userDetails.getEmail());
         existingUser.setPassword(userDetails.getPassword());
+        existingUser.setTokenVersion(existingUser.getTokenVersion() + 1);
         User updatedUser = userRepository.save(existingUser);
+        tokenService.revokeTokens(userId, updatedUser.getTokenVersion());
         return userToDto(updatedUser);
     }
 
+    // posts of the deleted user are removed by cascade, its tokens are revoked in the same transaction
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = {CacheConfig.POSTS_CACHE, CacheConfig.CREDENTIALS_CACHE}, allEntries = true)
     public void deleteUser(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", " Id ", userId));
         userRepository.delete(user);
+        tokenService.userDeleted(userId);
     }
 
     // DTO ---> Entity
     private User dtoToUser(UserDto userDto) {
-        return modelMapper.map(userDto, User.class);
+        return userMapper.toEntity(userDto);
     }
 
     // Entity ---> DTO
     public UserDto userToDto(User user) {
-        return modelMapper.map(user, UserDto.class);
+        return userMapper.toDto(user);
     }
 }
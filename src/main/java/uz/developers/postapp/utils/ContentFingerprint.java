@@ -0,0 +1,36 @@
+package uz.developers.postapp.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 128-bit fingerprint of a text for duplicate checks: the first 16 bytes of a SHA-256
+ * over the text with case and whitespace normalized, as 32 hex characters.
+ * "Hello  World" and "hello world\n" have the same fingerprint.
+ */
+public final class ContentFingerprint {
+
+    public static final int LENGTH = 32;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private ContentFingerprint() {
+    }
+
+    public static String of(String text) {
+        if (text == null) {
+            return null;
+        }
+        String normalized = WHITESPACE.matcher(text.strip()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, LENGTH / 2);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
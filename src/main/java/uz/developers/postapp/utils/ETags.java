@@ -0,0 +1,41 @@
+package uz.developers.postapp.utils;
+
+/**
+ * Weak ETags (RFC 9110) computed from what identifies a representation, typically the
+ * ids and versions of the entities in it, so a response can be validated without
+ * serializing it. Iterables, e.g. the items of a page, are hashed item by item.
+ * <p>
+ * The parts are hashed with FnvHash: 64 bits, not meant to resist a client that crafts
+ * collisions, which would only hurt its own caching.
+ */
+public final class ETags {
+
+    // separate the parts, so ("ab", "c") and ("a", "bc") differ
+    private static final char PART_END = '\u001f';
+    private static final char ITEMS_END = '\u001e';
+    private static final char NULL = '\u0000';
+
+    private ETags() {
+    }
+
+    public static String weak(Object... parts) {
+        long hash = FnvHash.OFFSET_BASIS;
+        for (Object part : parts) {
+            hash = add(hash, part);
+        }
+        return "W/\"" + Long.toHexString(FnvHash.fmix64(hash)) + "\"";
+    }
+
+    private static long add(long hash, Object part) {
+        if (part instanceof Iterable<?> items) {
+            for (Object item : items) {
+                hash = add(hash, item);
+            }
+            return FnvHash.add(hash, ITEMS_END);
+        }
+        if (part == null) {
+            return FnvHash.add(FnvHash.add(hash, NULL), PART_END);
+        }
+        return FnvHash.add(FnvHash.add(hash, part.toString()), PART_END);
+    }
+}
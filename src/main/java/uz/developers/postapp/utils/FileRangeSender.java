@@ -0,0 +1,138 @@
+package uz.developers.postapp.utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends a file as the response body, honouring a single byte range
+ * ("Range: bytes=start-end", RFC 9110) so interrupted downloads can be resumed.
+ * Multiple ranges are not supported; such requests get the whole file.
+ * Without a file name the file is sent to be shown inline rather than downloaded.
+ * <p>
+ * When Tomcat supports sendfile the copy is left to the connector, which hands the
+ * file to the socket without reading it into the JVM. Otherwise the file is copied
+ * with {@link FileChannel#transferTo}. The connector opens the file only after the
+ * servlet returned, so a file that may be deleted once the caller is done with it,
+ * such as a leased cache file, is sent without sendfile.
+ */
+public final class FileRangeSender {
+
+    private static final Pattern SINGLE_RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileRangeSender() {
+    }
+
+    public static void send(Path file, String contentType, String fileName,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String etag = "\"" + Long.toHexString(Files.size(file)) + "-"
+                + Long.toHexString(Files.getLastModifiedTime(file).toMillis()) + "\"";
+        send(file, etag, contentType, fileName, request, response);
+    }
+
+    // etag must be strong: it identifies the exact bytes a range is taken from
+    public static void send(Path file, String etag, String contentType, String fileName,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        send(file, etag, contentType, fileName, request, response, true);
+    }
+
+    // without sendfile the file has been sent when this returns, and may then be deleted
+    public static void send(Path file, String etag, String contentType, String fileName,
+                            HttpServletRequest request, HttpServletResponse response,
+                            boolean sendfile) throws IOException {
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+
+        response.setContentType(contentType);
+        if (fileName != null) {
+            response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        }
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader("Range");
+        String ifRange = request.getHeader("If-Range");
+        // If-Range: resume only if the file is still the one the client has the first part of
+        Matcher matcher = range == null ? null : SINGLE_RANGE.matcher(range.trim());
+        if (matcher != null && matcher.matches() && (ifRange == null || ifRange.equals(etag))) {
+            long[] bounds = parseRange(matcher.group(1), matcher.group(2), length);
+            if (bounds == null) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader("Content-Range", "bytes */" + length);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (sendfile && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                position += channel.transferTo(position, end + 1 - position, target);
+            }
+        }
+    }
+
+    // {start, end} for a satisfiable range, an empty array for a range to ignore
+    // (the whole file is sent), null for an unsatisfiable one
+    private static long[] parseRange(String first, String last, long length) {
+        try {
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return new long[0];
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix == 0 || length == 0) {
+                    return null;
+                }
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (!last.isEmpty() && Long.parseLong(last) < start) {
+                return new long[0];
+            }
+            if (start >= length) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package uz.developers.postapp.utils;
+
+/**
+ * 64-bit FNV-1a over the chars of a value, with the MurmurHash3 finalizer (fmix64) to
+ * spread the bits. Fast and well distributed, but not meant to resist crafted collisions.
+ */
+final class FnvHash {
+
+    static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long PRIME = 0x100000001b3L;
+
+    private FnvHash() {
+    }
+
+    static long of(CharSequence value) {
+        return fmix64(add(OFFSET_BASIS, value));
+    }
+
+    static long add(long hash, CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = add(hash, value.charAt(i));
+        }
+        return hash;
+    }
+
+    static long add(long hash, char c) {
+        return (hash ^ c) * PRIME;
+    }
+
+    static long fmix64(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,36 @@
+-- Runs after Hibernate has updated the schema (spring.jpa.defer-datasource-initialization=true).
+-- Every statement must be idempotent, the script is executed on each startup.
+
+-- Full-text search: title weighted above content, 'simple' config because posts are multilingual
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(content, '')), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_posts_search_vector ON posts USING GIN (search_vector);
+
+-- Post ids come from posts_seq (see Post.id), which replaced the identity column. Plain SQL
+-- inserts take the same sequence; with the pooled-lo optimizer such a nextval only skips a block.
+ALTER TABLE posts ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE posts ALTER COLUMN id SET DEFAULT nextval('posts_seq');
+ALTER SEQUENCE posts_seq OWNED BY posts.id;
+-- moves the sequence past ids given out by the old identity column, a no-op once it is ahead
+SELECT setval('posts_seq', (SELECT max(id) FROM posts))
+WHERE (SELECT max(id) FROM posts) >= (SELECT last_value FROM posts_seq);
+
+-- Duplicate checks by content fingerprint (see DuplicateCheckService). Created here rather than
+-- by Hibernate, whose schema update would drop and recreate a unique constraint on every startup.
+CREATE UNIQUE INDEX IF NOT EXISTS idx_posts_content_fingerprint ON posts (content_fingerprint);
+-- Comments repeat each other across posts ("Thanks!"), they are only unique within a post
+DROP INDEX IF EXISTS idx_comment_content_fingerprint;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_comment_post_content_fingerprint ON comment (post_id, content_fingerprint);
+
+-- Bearer token revocations, reloaded periodically by every node (see TokenService). Not tied to
+-- users by a foreign key: a deleted user's row is the one that must outlive the user.
+DROP INDEX IF EXISTS idx_users_token_version;
+CREATE TABLE IF NOT EXISTS token_revocations (
+    user_id     BIGINT PRIMARY KEY,
+    min_version INTEGER NOT NULL,
+    revoked_at  TIMESTAMP WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,71 @@
+package uz.developers.postapp.perf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Latency and throughput limits per scenario, read from a properties file:
+ * <pre>
+ * posts.byId.p99=50             # milliseconds
+ * posts.byId.min-throughput=200 # requests per second
+ * posts.byId.max-error-rate=0   # fraction of requests answered with 4xx/5xx or failed
+ * </pre>
+ * Limits missing for a scenario fall back to the default.* entries; a limit missing
+ * there too is not checked.
+ */
+class Budget {
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    private final Properties limits;
+
+    private Budget(Properties limits) {
+        this.limits = limits;
+    }
+
+    static Budget load(String location) throws IOException {
+        Properties limits = new Properties();
+        if (location.startsWith(CLASSPATH_PREFIX)) {
+            String resource = location.substring(CLASSPATH_PREFIX.length());
+            try (InputStream in = Budget.class.getClassLoader().getResourceAsStream(resource)) {
+                if (in == null) {
+                    throw new IOException("Budget not found on the classpath: " + resource);
+                }
+                limits.load(in);
+            }
+        } else {
+            try (InputStream in = Files.newInputStream(Path.of(location))) {
+                limits.load(in);
+            }
+        }
+        return new Budget(limits);
+    }
+
+    List<String> check(EndpointResult result) {
+        List<String> violations = new ArrayList<>();
+        Double p99 = limit(result.name(), "p99");
+        if (p99 != null && result.p99() > p99) {
+            violations.add(String.format("%s: p99 %.1f ms exceeds %.1f ms", result.name(), result.p99(), p99));
+        }
+        Double minThroughput = limit(result.name(), "min-throughput");
+        if (minThroughput != null && result.throughput() < minThroughput) {
+            violations.add(String.format("%s: throughput %.1f req/s is below %.1f req/s",
+                    result.name(), result.throughput(), minThroughput));
+        }
+        Double maxErrorRate = limit(result.name(), "max-error-rate");
+        if (maxErrorRate != null && result.errorRate() > maxErrorRate) {
+            violations.add(String.format("%s: error rate %.4f exceeds %.4f", result.name(), result.errorRate(), maxErrorRate));
+        }
+        return violations;
+    }
+
+    private Double limit(String scenario, String key) {
+        String value = limits.getProperty(scenario + "." + key, limits.getProperty("default." + key));
+        return value == null || value.isBlank() ? null : Double.valueOf(value.trim());
+    }
+}
@@ -0,0 +1,44 @@
+package uz.developers.postapp.perf;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Fills the schema Hibernate created with a synthetic dataset, using generate_series so
+ * millions of rows are written by the database itself rather than sent over JDBC.
+ * <p>
+ * User n logs in as user{n}@perf.test / password. Post titles and contents draw from a
+ * small vocabulary ("word0".."word999"), so full-text searches have realistic hit counts.
+ */
+class DatasetSeeder {
+
+    static final String PASSWORD = "password";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    DatasetSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    void seed(PerfSettings settings) {
+        jdbcTemplate.execute("truncate comment, posts, category, users restart identity cascade");
+
+        jdbcTemplate.update("insert into users (name, email, password) " +
+                "select 'Perf User ' || g, 'user' || g || '@perf.test', ? from generate_series(1, ?) g",
+                PASSWORD, settings.users());
+        jdbcTemplate.update("insert into category (title, description) " +
+                "select 'Category ' || g, 'Synthetic category ' || g from generate_series(1, ?) g",
+                settings.categories());
+        // explicit ids: the posts_seq default hands out a block of 50 per row
+        jdbcTemplate.update("insert into posts (id, title, content, image, date, category_id, user_id) " +
+                "select g, 'Post ' || g || ' word' || (g % 1000), " +
+                "'Content of post ' || g || ' about word' || (g * 7 % 1000) || ' and word' || (g * 13 % 1000), " +
+                "null, date '2020-01-01' + (g % 1800), 1 + g % ?, 1 + g % ? from generate_series(1, ?) g",
+                settings.categories(), settings.users(), settings.posts());
+        jdbcTemplate.queryForObject("select setval('posts_seq', ?)", Long.class, (long) settings.posts());
+        jdbcTemplate.update("insert into comment (content, user_id, post_id) " +
+                "select 'Comment ' || g, 1 + g % ?, 1 + g % ? from generate_series(1, ?) g",
+                settings.users(), settings.posts(), settings.comments());
+
+        jdbcTemplate.execute("analyze");
+    }
+}
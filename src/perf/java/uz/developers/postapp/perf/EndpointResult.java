@@ -0,0 +1,12 @@
+package uz.developers.postapp.perf;
+
+/**
+ * Measured numbers of one scenario; latencies in milliseconds.
+ */
+record EndpointResult(String name, long requests, long errors, double throughput,
+                      double p50, double p95, double p99, double max) {
+
+    double errorRate() {
+        return requests == 0 ? 0 : (double) errors / requests;
+    }
+}
@@ -0,0 +1,97 @@
+package uz.developers.postapp.perf;
+
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop load: a fixed number of clients, each sending its next request as soon as
+ * the previous one is answered. Latencies go into an HdrHistogram per client, merged at the end.
+ */
+class LoadDriver {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = Duration.ofMinutes(5).toNanos();
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final String baseUrl;
+
+    private final int concurrency;
+
+    LoadDriver(String baseUrl, int concurrency) {
+        this.baseUrl = baseUrl;
+        this.concurrency = concurrency;
+    }
+
+    EndpointResult run(Scenario scenario, Duration warmup, Duration duration) throws Exception {
+        drive(scenario, warmup);
+        long start = System.nanoTime();
+        List<ClientResult> clients = drive(scenario, duration);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Histogram latencies = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        long errors = 0;
+        for (ClientResult client : clients) {
+            latencies.add(client.latencies());
+            errors += client.errors();
+        }
+        long requests = latencies.getTotalCount();
+        return new EndpointResult(scenario.name(), requests, errors, requests / seconds,
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(95)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getMaxValue()));
+    }
+
+    private List<ClientResult> drive(Scenario scenario, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<ClientResult>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(executor.submit(() -> client(scenario, deadline)));
+            }
+            List<ClientResult> results = new ArrayList<>();
+            for (Future<ClientResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        }
+    }
+
+    private ClientResult client(Scenario scenario, long deadline) {
+        Histogram latencies = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        long errors = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = httpClient.send(scenario.requestFactory().apply(baseUrl, random),
+                        HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 400) {
+                    errors++;
+                }
+            } catch (Exception e) {
+                errors++;
+            }
+            latencies.recordValue(Math.min(System.nanoTime() - start, HIGHEST_TRACKABLE_NANOS));
+        }
+        return new ClientResult(latencies, errors);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private record ClientResult(Histogram latencies, long errors) {
+    }
+}
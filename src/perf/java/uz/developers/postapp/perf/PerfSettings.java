@@ -0,0 +1,42 @@
+package uz.developers.postapp.perf;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings of a run, given as --name=value arguments (the perf profile passes the
+ * perf.* Maven properties). Empty values fall back to the defaults.
+ * <p>
+ * Without a jdbc-url an embedded PostgreSQL is started. With one, the database it points
+ * to is TRUNCATED and reseeded, unless seed=false reuses the dataset of an earlier run.
+ */
+record PerfSettings(String jdbcUrl, String username, String password,
+                    boolean seed, int users, int categories, int posts, int comments,
+                    int concurrency, Duration warmup, Duration duration,
+                    String budget, String report) {
+
+    static PerfSettings parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (arg.startsWith("--") && separator > 2 && separator < arg.length() - 1) {
+                values.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return new PerfSettings(
+                values.get("jdbc-url"),
+                values.getOrDefault("username", "postgres"),
+                values.getOrDefault("password", "postgres"),
+                Boolean.parseBoolean(values.getOrDefault("seed", "true")),
+                Integer.parseInt(values.getOrDefault("users", "100000")),
+                Integer.parseInt(values.getOrDefault("categories", "50")),
+                Integer.parseInt(values.getOrDefault("posts", "1000000")),
+                Integer.parseInt(values.getOrDefault("comments", "5000000")),
+                Integer.parseInt(values.getOrDefault("concurrency", "32")),
+                Duration.parse("PT" + values.getOrDefault("warmup", "5s")),
+                Duration.parse("PT" + values.getOrDefault("duration", "20s")),
+                values.getOrDefault("budget", "classpath:perf-budget.properties"),
+                values.getOrDefault("report", "target/perf-report.json"));
+    }
+}
@@ -0,0 +1,185 @@
+package uz.developers.postapp.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uz.developers.postapp.PostAppApplication;
+import uz.developers.postapp.service.CommentCountService;
+import uz.developers.postapp.service.DuplicateCheckService;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.random.RandomGenerator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end load and latency regression suite.
+ * <p>
+ * Boots the application against PostgreSQL, seeds a dataset of the configured size, then
+ * loads every endpoint group (posts, comments, categories, users, downloads) in turn with
+ * a fixed number of concurrent clients. Throughput and p50/p95/p99 latencies per scenario
+ * are printed and written as JSON; the process exits with 1 when a scenario breaks the
+ * budget in perf-budget.properties.
+ * <p>
+ * Run with: mvn -Pperf test-compile exec:exec [-Dperf.posts=100000 ...]
+ */
+public class PerfSuite {
+
+    public static void main(String[] args) throws Exception {
+        PerfSettings settings = PerfSettings.parse(args);
+        Budget budget = Budget.load(settings.budget());
+
+        EmbeddedPostgres embeddedPostgres = null;
+        String jdbcUrl = settings.jdbcUrl();
+        if (jdbcUrl == null) {
+            embeddedPostgres = EmbeddedPostgres.builder().start();
+            jdbcUrl = embeddedPostgres.getJdbcUrl("postgres", "postgres");
+        }
+
+        // devtools would restart main() in a new class loader, with the Spring arguments only
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<EndpointResult> results = new ArrayList<>();
+        try (ConfigurableApplicationContext context = SpringApplication.run(PostAppApplication.class,
+                "--server.port=0",
+                "--spring.profiles.active=dev",
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=" + settings.username(),
+                "--spring.datasource.password=" + settings.password(),
+                "--app.sql.log.sample-rate=0")) {
+            if (settings.seed()) {
+                long start = System.nanoTime();
+                new DatasetSeeder(context.getBean(JdbcTemplate.class)).seed(settings);
+                // seeded rows are not in the duplicate filters built at startup
+                DuplicateCheckService duplicateCheckService = context.getBean(DuplicateCheckService.class);
+                duplicateCheckService.backfillFingerprints();
+                duplicateCheckService.rebuildFilters();
+                context.getBean(CommentCountService.class).reconcile();
+                System.out.printf("Seeded %d users, %d categories, %d posts, %d comments in %.1f s%n",
+                        settings.users(), settings.categories(), settings.posts(), settings.comments(),
+                        (System.nanoTime() - start) / 1e9);
+            }
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadDriver driver = new LoadDriver("http://localhost:" + port, settings.concurrency());
+            for (Scenario scenario : scenarios(settings)) {
+                EndpointResult result = driver.run(scenario, settings.warmup(), settings.duration());
+                System.out.printf("%-22s %8d req %6d err %9.1f req/s  p50 %8.2f  p95 %8.2f  p99 %8.2f  max %8.2f ms%n",
+                        result.name(), result.requests(), result.errors(), result.throughput(),
+                        result.p50(), result.p95(), result.p99(), result.max());
+                results.add(result);
+            }
+        } finally {
+            if (embeddedPostgres != null) {
+                embeddedPostgres.close();
+            }
+        }
+
+        List<String> violations = new ArrayList<>();
+        for (EndpointResult result : results) {
+            violations.addAll(budget.check(result));
+        }
+        writeReport(settings, results, violations);
+        if (!violations.isEmpty()) {
+            System.out.println("Performance budget exceeded:");
+            violations.forEach(violation -> System.out.println("  " + violation));
+            System.exit(1);
+        }
+        System.out.println("All scenarios are within the budget.");
+        System.exit(0);
+    }
+
+    private static List<Scenario> scenarios(PerfSettings settings) {
+        String authorization = "Basic " + Base64.getEncoder().encodeToString(
+                ("user1@perf.test:" + DatasetSeeder.PASSWORD).getBytes(StandardCharsets.UTF_8));
+        int users = settings.users();
+        int categories = settings.categories();
+        int posts = settings.posts();
+        return List.of(
+                get("posts.page", authorization, random -> "/api/posts?page=" + random.nextInt(100) + "&size=10"),
+                get("posts.byId", authorization, random -> "/api/posts/" + id(random, posts)),
+                get("posts.byCategory", authorization, random -> "/api/posts/category/" + id(random, categories) + "?page=" + random.nextInt(10)),
+                get("posts.byUser", authorization, random -> "/api/posts/user/" + id(random, users)),
+                get("posts.scroll", authorization, random -> "/api/posts/scroll?size=10"),
+                get("posts.search", authorization, random -> "/api/posts/search?keyword=word" + random.nextInt(1000)),
+                get("comments.byPost", authorization, random -> "/api/comments/posts/" + id(random, posts)),
+                // a feed page: the first comments of 20 posts
+                get("comments.feed", authorization, random -> "/api/comments/posts?limit=3&ids="
+                        + Stream.generate(() -> String.valueOf(id(random, posts))).limit(20).collect(Collectors.joining(","))),
+                post("comments.create", authorization, random -> "/api/comments/posts/" + id(random, posts),
+                        random -> "{\"content\":\"Perf comment " + UUID.randomUUID() + "\",\"userId\":" + id(random, users) + "}"),
+                get("categories.list", authorization, random -> "/api/categories"),
+                get("categories.byId", authorization, random -> "/api/categories/" + id(random, categories)),
+                get("users.list", authorization, random -> "/api/users?page=" + random.nextInt(100)),
+                get("users.byId", authorization, random -> "/api/users/" + id(random, users)),
+                post("users.login", authorization, random -> "/api/users/login",
+                        random -> "{\"email\":\"user" + id(random, users) + "@perf.test\",\"password\":\"" + DatasetSeeder.PASSWORD + "\"}"),
+                get("downloads.pdf", authorization, random -> "/api/post/downloads/pdf/" + id(random, posts)),
+                get("downloads.csvByUser", authorization, random -> "/api/post/downloads/csv/user/" + id(random, users)));
+    }
+
+    private static Scenario get(String name, String authorization, PathFactory path) {
+        return new Scenario(name, (baseUrl, random) -> HttpRequest.newBuilder(URI.create(baseUrl + path.create(random)))
+                .header("Authorization", authorization)
+                .GET()
+                .build());
+    }
+
+    private static Scenario post(String name, String authorization, PathFactory path, PathFactory body) {
+        return new Scenario(name, (baseUrl, random) -> HttpRequest.newBuilder(URI.create(baseUrl + path.create(random)))
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.create(random)))
+                .build());
+    }
+
+    // ids are 1..count, the seeder restarts the sequences
+    private static long id(RandomGenerator random, int count) {
+        return 1 + random.nextInt(Math.max(count, 1));
+    }
+
+    private static void writeReport(PerfSettings settings, List<EndpointResult> results, List<String> violations)
+            throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", Instant.now().toString());
+        // the settings without the database credentials
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("users", settings.users());
+        run.put("categories", settings.categories());
+        run.put("posts", settings.posts());
+        run.put("comments", settings.comments());
+        run.put("concurrency", settings.concurrency());
+        run.put("warmup", settings.warmup().toString());
+        run.put("duration", settings.duration().toString());
+        report.put("settings", run);
+        report.put("results", results);
+        report.put("violations", violations);
+        Path file = Path.of(settings.report());
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        new ObjectMapper()
+                .writerWithDefaultPrettyPrinter()
+                .writeValue(file.toFile(), report);
+        System.out.println("Report written to " + file.toAbsolutePath());
+    }
+
+    @FunctionalInterface
+    private interface PathFactory {
+        String create(RandomGenerator random);
+    }
+}
@@ -0,0 +1,12 @@
+package uz.developers.postapp.perf;
+
+import java.net.http.HttpRequest;
+import java.util.function.BiFunction;
+import java.util.random.RandomGenerator;
+
+/**
+ * One endpoint under load. The request factory receives the server's base URL and a
+ * random generator, so every request can pick different ids.
+ */
+record Scenario(String name, BiFunction<String, RandomGenerator, HttpRequest> requestFactory) {
+}
@@ -0,0 +1,129 @@
+package uz.developers.postapp.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import jakarta.servlet.http.Cookie;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+	private static final String SERVICE_TRANSACTION = "uz.developers.postapp.service.impl.PostServiceImpl.getAllPosts";
+
+	private static final String REPOSITORY_TRANSACTION = "org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById";
+
+	@AfterEach
+	void resetRequest() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void readOnlyServiceTransactionsGoToTheReplica() {
+		Routing routing = new Routing(database("primary"), database("replica"));
+		assertThat(routing.read(true, SERVICE_TRANSACTION)).isEqualTo("replica");
+		assertThat(routing.read(false, SERVICE_TRANSACTION)).isEqualTo("primary");
+		assertThat(routing.read(true, REPOSITORY_TRANSACTION)).isEqualTo("primary");
+		assertThat(routing.jdbcTemplate.queryForObject("select name from marker", String.class)).isEqualTo("primary");
+	}
+
+	@Test
+	void writersReadTheirWritesFromThePrimary() {
+		Routing routing = new Routing(database("primary"), database("replica"));
+		MockHttpServletResponse response = startRequest(new MockHttpServletRequest());
+		routing.read(false, SERVICE_TRANSACTION);
+		assertThat(routing.read(true, SERVICE_TRANSACTION)).isEqualTo("primary");
+		String lastWrite = response.getHeader(ReplicaRoutingDataSource.LAST_WRITE_HEADER);
+		assertThat(response.getCookie(ReplicaRoutingDataSource.LAST_WRITE_COOKIE).getValue()).isEqualTo(lastWrite);
+
+		// any node that gets the header or the cookie back reads from the primary
+		Routing otherNode = new Routing(database("primary"), database("replica"));
+		MockHttpServletRequest withHeader = new MockHttpServletRequest();
+		withHeader.addHeader(ReplicaRoutingDataSource.LAST_WRITE_HEADER, lastWrite);
+		startRequest(withHeader);
+		assertThat(otherNode.read(true, SERVICE_TRANSACTION)).isEqualTo("primary");
+		MockHttpServletRequest withCookie = new MockHttpServletRequest();
+		withCookie.setCookies(new Cookie(ReplicaRoutingDataSource.LAST_WRITE_COOKIE, lastWrite));
+		startRequest(withCookie);
+		assertThat(otherNode.read(true, SERVICE_TRANSACTION)).isEqualTo("primary");
+
+		startRequest(new MockHttpServletRequest());
+		assertThat(otherNode.read(true, SERVICE_TRANSACTION)).isEqualTo("replica");
+		MockHttpServletRequest afterTheWindow = new MockHttpServletRequest();
+		afterTheWindow.addHeader(ReplicaRoutingDataSource.LAST_WRITE_HEADER,
+				Long.toString(System.currentTimeMillis() - Duration.ofMinutes(2).toMillis()));
+		startRequest(afterTheWindow);
+		assertThat(otherNode.read(true, SERVICE_TRANSACTION)).isEqualTo("replica");
+	}
+
+	@Test
+	void unavailableReplicasAreSkipped() {
+		Routing routing = new Routing(database("primary"), new DriverManagerDataSource("jdbc:unavailable:replica"),
+				database("replica"));
+		for (int i = 0; i < 4; i++) {
+			assertThat(routing.read(true, SERVICE_TRANSACTION)).isIn("primary", "replica");
+		}
+		routing.dataSource.checkReplicas();
+		for (int i = 0; i < 4; i++) {
+			assertThat(routing.read(true, SERVICE_TRANSACTION)).isEqualTo("replica");
+		}
+	}
+
+	private static DataSource database(String name) {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:" + name + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("create table marker (name varchar(16))");
+		jdbcTemplate.update("insert into marker values (?)", name);
+		return dataSource;
+	}
+
+	private static MockHttpServletResponse startRequest(MockHttpServletRequest request) {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+		return response;
+	}
+
+	private static class Routing {
+
+		private final ReplicaRoutingDataSource dataSource;
+
+		private final JdbcTemplate jdbcTemplate;
+
+		private final DataSourceTransactionManager transactionManager;
+
+		Routing(DataSource primary, DataSource... replicas) {
+			Map<String, DataSource> replicasByName = new LinkedHashMap<>();
+			for (DataSource replica : replicas) {
+				replicasByName.put("replica-" + (replicasByName.size() + 1), replica);
+			}
+			dataSource = new ReplicaRoutingDataSource(primary, replicasByName, Duration.ofMinutes(1),
+					new SimpleMeterRegistry());
+			LazyConnectionDataSourceProxy lazyDataSource = new LazyConnectionDataSourceProxy(dataSource);
+			jdbcTemplate = new JdbcTemplate(lazyDataSource);
+			transactionManager = new DataSourceTransactionManager(lazyDataSource);
+		}
+
+		String read(boolean readOnly, String transactionName) {
+			TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+			transactionTemplate.setReadOnly(readOnly);
+			transactionTemplate.setName(transactionName);
+			return transactionTemplate.execute(status ->
+					jdbcTemplate.queryForObject("select name from marker", String.class));
+		}
+	}
+}
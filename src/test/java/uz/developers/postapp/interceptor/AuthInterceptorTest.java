@@ -0,0 +1,86 @@
+package uz.developers.postapp.interceptor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import uz.developers.postapp.config.CacheConfig;
+import uz.developers.postapp.entity.User;
+import uz.developers.postapp.exceptions.UserException;
+import uz.developers.postapp.repository.UserRepository;
+import uz.developers.postapp.service.impl.TokenServiceImpl;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuthInterceptorTest {
+
+	private final AtomicReference<User> storedUser = new AtomicReference<>(user("old password", 0));
+
+	private final JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+			"jdbc:h2:mem:auth" + System.nanoTime() + ";DB_CLOSE_DELAY=-1"));
+
+	private final TokenServiceImpl tokenService = new TokenServiceImpl(jdbcTemplate,
+			"test-token-secret-of-at-least-32-bytes", Duration.ofHours(1));
+
+	private final AuthInterceptor interceptor = new AuthInterceptor(userRepository(),
+			new CacheConfig().cacheManager(100, Duration.ofMinutes(1), 100, Duration.ofMinutes(1),
+					100, Duration.ofMinutes(1), DataSize.ofMegabytes(1)),
+			tokenService);
+
+	@Test
+	void cachedCredentialsOfAChangedUserAreVerifiedAgain() throws Exception {
+		assertThat(authenticate("old password")).isTrue();
+
+		// the verification above stands for one that read the user just before the change committed,
+		// and cached it after the change cleared the cache
+		storedUser.set(user("new password", 1));
+		jdbcTemplate.execute("create table token_revocations (user_id bigint primary key, min_version integer not null, "
+				+ "revoked_at timestamp with time zone not null)");
+		jdbcTemplate.update("insert into token_revocations values (?, ?, ?)", 7L, 1, Timestamp.from(Instant.now()));
+		tokenService.refreshTokenVersions();
+
+		assertThatThrownBy(() -> authenticate("old password")).isInstanceOf(UserException.class);
+		assertThat(authenticate("new password")).isTrue();
+		assertThat(authenticate("new password")).isTrue();
+	}
+
+	private boolean authenticate(String password) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/posts");
+		request.addHeader("Authorization", "Basic " + Base64.getEncoder()
+				.encodeToString(("user@example.com:" + password).getBytes(StandardCharsets.UTF_8)));
+		return interceptor.preHandle(request, new MockHttpServletResponse(), null);
+	}
+
+	private UserRepository userRepository() {
+		return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+				new Class<?>[]{UserRepository.class},
+				(proxy, method, args) -> {
+					if (method.getName().equals("findByEmail")) {
+						User user = storedUser.get();
+						return user.getEmail().equals(args[0]) ? Optional.of(user) : Optional.empty();
+					}
+					throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private static User user(String password, int tokenVersion) {
+		User user = new User();
+		user.setId(7L);
+		user.setEmail("user@example.com");
+		user.setPassword(password);
+		user.setTokenVersion(tokenVersion);
+		return user;
+	}
+}
@@ -0,0 +1,88 @@
+package uz.developers.postapp.interceptor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import uz.developers.postapp.exceptions.BulkheadFullException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkheadDataSourceTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final BulkheadDataSource dataSource = new BulkheadDataSource(
+			new DriverManagerDataSource("jdbc:h2:mem:bulkhead" + System.nanoTime() + ";DB_CLOSE_DELAY=-1"),
+			new Bulkhead("reads", 1, Duration.ofMillis(50), meterRegistry),
+			new Bulkhead("writes", 1, Duration.ofMillis(50), meterRegistry),
+			new Bulkhead("exports", 1, Duration.ofMillis(50), meterRegistry));
+
+	@AfterEach
+	void resetRequest() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void permitIsHeldOnlyWhileTheConnectionIsOpen() throws SQLException {
+		startRequest("GET", "/api/posts");
+		Connection connection = dataSource.getConnection();
+		assertThat(available("reads")).isZero();
+		connection.close();
+		connection.close();
+		assertThat(available("reads")).isEqualTo(1);
+
+		// the response can go on after the connection was given back
+		startRequest("GET", "/api/posts");
+		dataSource.getConnection().close();
+		assertThat(available("reads")).isEqualTo(1);
+	}
+
+	@Test
+	void secondConnectionOfARequestNeedsNoPermit() throws SQLException {
+		startRequest("POST", "/api/posts");
+		Connection first = dataSource.getConnection();
+		Connection second = dataSource.getConnection();
+		assertThat(available("writes")).isZero();
+		first.close();
+		assertThat(available("writes")).isZero();
+		second.close();
+		assertThat(available("writes")).isEqualTo(1);
+	}
+
+	@Test
+	void fullGroupRejectsOnlyItsOwnRequests() throws SQLException {
+		startRequest("GET", "/api/post/exports/1/file");
+		try (Connection ignored = dataSource.getConnection()) {
+			startRequest("GET", "/api/post/downloads");
+			assertThatThrownBy(dataSource::getConnection).isInstanceOf(BulkheadFullException.class);
+			startRequest("GET", "/api/posts");
+			dataSource.getConnection().close();
+		}
+		assertThat(available("exports")).isEqualTo(1);
+	}
+
+	@Test
+	void connectionsOutsideARequestNeedNoPermit() throws SQLException {
+		try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+			assertThat(available("reads")).isEqualTo(1);
+			assertThat(available("writes")).isEqualTo(1);
+		}
+	}
+
+	private double available(String group) {
+		return meterRegistry.get("bulkhead.available").tag("group", group).gauge().value();
+	}
+
+	private static void startRequest(String method, String uri) {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(method, uri)));
+	}
+}
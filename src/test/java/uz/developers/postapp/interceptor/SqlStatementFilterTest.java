@@ -0,0 +1,35 @@
+package uz.developers.postapp.interceptor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("dev")
+@AutoConfigureMockMvc
+class SqlStatementFilterTest {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Test
+	void pageOfUsersIssuesAtMostTwoStatements() throws Exception {
+		mockMvc.perform(get("/api/users").param("size", "5"))
+				.andExpect(status().isOk())
+				.andExpect(header().exists("Server-Timing"))
+				.andExpect(SqlStatementMatchers.atMost(2));
+	}
+
+	@Test
+	void requestWithoutSqlIssuesNone() throws Exception {
+		mockMvc.perform(get("/v3/api-docs"))
+				.andExpect(SqlStatementMatchers.exactly(0));
+	}
+}
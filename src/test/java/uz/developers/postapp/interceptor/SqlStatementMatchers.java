@@ -0,0 +1,37 @@
+package uz.developers.postapp.interceptor;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MockMvc expectations on the SQL statements a request issued, as counted by SqlStatementFilter:
+ * <pre>
+ * mockMvc.perform(get("/api/posts")).andExpect(SqlStatementMatchers.atMost(2));
+ * </pre>
+ */
+public final class SqlStatementMatchers {
+
+	private SqlStatementMatchers() {
+	}
+
+	public static ResultMatcher atMost(int statements) {
+		return result -> assertThat(statementsOf(result.getRequest(), result.getResponse().getHeader(SqlStatementFilter.STATEMENTS_HEADER)))
+				.as("SQL statements of %s %s", result.getRequest().getMethod(), result.getRequest().getRequestURI())
+				.isLessThanOrEqualTo(statements);
+	}
+
+	public static ResultMatcher exactly(int statements) {
+		return result -> assertThat(statementsOf(result.getRequest(), result.getResponse().getHeader(SqlStatementFilter.STATEMENTS_HEADER)))
+				.as("SQL statements of %s %s", result.getRequest().getMethod(), result.getRequest().getRequestURI())
+				.isEqualTo(statements);
+	}
+
+	private static int statementsOf(MockHttpServletRequest request, String header) {
+		assertThat(header)
+				.as("%s header of %s %s", SqlStatementFilter.STATEMENTS_HEADER, request.getMethod(), request.getRequestURI())
+				.isNotNull();
+		return Integer.parseInt(header);
+	}
+}
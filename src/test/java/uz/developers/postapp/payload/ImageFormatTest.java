@@ -0,0 +1,31 @@
+package uz.developers.postapp.payload;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageFormatTest {
+
+	@Test
+	void formatIsDetectedFromTheLeadingBytes() throws Exception {
+		byte[] jpeg = Files.readAllBytes(Path.of("bulit images/image1.jpg"));
+		assertThat(ImageFormat.detect(jpeg, ImageFormat.SIGNATURE_LENGTH)).isEqualTo(ImageFormat.JPEG);
+		byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13};
+		assertThat(ImageFormat.detect(png, png.length)).isEqualTo(ImageFormat.PNG);
+		byte[] webp = "RIFF\0\0\0\0WEBP".getBytes(StandardCharsets.US_ASCII);
+		assertThat(ImageFormat.detect(webp, webp.length)).isEqualTo(ImageFormat.WEBP);
+	}
+
+	@Test
+	void otherContentIsNoImage() {
+		byte[] svg = "<svg xmlns=\"".getBytes(StandardCharsets.US_ASCII);
+		assertThat(ImageFormat.detect(svg, svg.length)).isNull();
+		byte[] riff = "RIFF\0\0\0\0WAVE".getBytes(StandardCharsets.US_ASCII);
+		assertThat(ImageFormat.detect(riff, riff.length)).isNull();
+		assertThat(ImageFormat.detect(new byte[]{(byte) 0xFF, (byte) 0xD8}, 2)).isNull();
+	}
+}
@@ -0,0 +1,31 @@
+package uz.developers.postapp.payload;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageRenditionTest {
+
+	private static final String HASH = "c4aea77ab974f838fa50d81d92270a9b6629a2296146a9f523d249ecc1b02886";
+
+	@Test
+	void renditionNamesLeadBackToTheImage() {
+		String thumbnail = ImageRendition.THUMBNAIL.nameFor(HASH + ".png");
+		String medium = ImageRendition.MEDIUM.nameFor(HASH + ".gif");
+		assertThat(thumbnail).isEqualTo(HASH + "-thumb.jpg");
+		assertThat(medium).isEqualTo(HASH + "-medium.jpg");
+		assertThat(ImageRendition.fromName(thumbnail)).isEqualTo(ImageRendition.THUMBNAIL);
+		assertThat(ImageRendition.fromName(medium)).isEqualTo(ImageRendition.MEDIUM);
+		assertThat(ImageRendition.imageHash(thumbnail)).isEqualTo(HASH);
+		assertThat(ImageRendition.imageHash(medium)).isEqualTo(HASH);
+	}
+
+	@Test
+	void imagesAreNoRenditions() {
+		assertThat(ImageRendition.fromName(HASH + ".jpg")).isNull();
+		assertThat(ImageRendition.fromName(HASH + ".png")).isNull();
+		// the JDK cannot decode WebP, such images are their own renditions
+		assertThat(ImageRendition.THUMBNAIL.nameFor(HASH + ".webp")).isNull();
+		assertThat(ImageRendition.THUMBNAIL.nameFor(HASH)).isNull();
+	}
+}
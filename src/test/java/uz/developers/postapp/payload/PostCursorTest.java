@@ -0,0 +1,28 @@
+package uz.developers.postapp.payload;
+
+import org.junit.jupiter.api.Test;
+import uz.developers.postapp.exceptions.PostException;
+
+import java.sql.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PostCursorTest {
+
+	@Test
+	void encodedCursorDecodesToSamePosition() {
+		PostCursor cursor = new PostCursor(Date.valueOf("2024-01-01"), 123L);
+
+		PostCursor decoded = PostCursor.decode(cursor.encode());
+
+		assertThat(decoded).isEqualTo(cursor);
+	}
+
+	@Test
+	void malformedCursorIsRejected() {
+		assertThatThrownBy(() -> PostCursor.decode("not-a-cursor"))
+				.isInstanceOf(PostException.class);
+	}
+
+}
@@ -0,0 +1,102 @@
+package uz.developers.postapp.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import uz.developers.postapp.payload.CachedDocument;
+import uz.developers.postapp.payload.ExportFormat;
+import uz.developers.postapp.utils.FileRangeSender;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentCacheServiceImplTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void evictedDocumentIsDeletedOnceReleased() throws IOException {
+		DocumentCacheServiceImpl cache = cache(DataSize.ofMegabytes(1));
+		CachedDocument document = document(cache, 1L, "a");
+
+		cache.evictPost(1L);
+		assertThat(document.getFile()).exists();
+		cache.release(document);
+		assertThat(document.getFile()).doesNotExist();
+	}
+
+	@Test
+	void documentIsKeptUntilTheLastReleased() throws IOException {
+		DocumentCacheServiceImpl cache = cache(DataSize.ofMegabytes(1));
+		CachedDocument first = document(cache, 1L, "a");
+		CachedDocument second = document(cache, 1L, "a");
+		assertThat(second).isSameAs(first);
+
+		cache.evictPost(1L);
+		cache.release(first);
+		assertThat(first.getFile()).exists();
+		cache.release(second);
+		assertThat(first.getFile()).doesNotExist();
+	}
+
+	@Test
+	void documentOverTheSizeLimitIsDeletedOnceReleased() throws IOException {
+		DocumentCacheServiceImpl cache = cache(DataSize.ofBytes(8));
+		CachedDocument eldest = document(cache, 1L, "a");
+		cache.release(eldest);
+		CachedDocument leased = document(cache, 2L, "b");
+		assertThat(eldest.getFile()).doesNotExist();
+
+		CachedDocument newest = document(cache, 3L, "c");
+		assertThat(leased.getFile()).exists();
+		cache.release(leased);
+		assertThat(leased.getFile()).doesNotExist();
+		assertThat(newest.getFile()).exists();
+	}
+
+	@Test
+	void releasedDocumentStaysCached() throws IOException {
+		DocumentCacheServiceImpl cache = cache(DataSize.ofMegabytes(1));
+		CachedDocument document = document(cache, 1L, "a");
+		cache.release(document);
+		assertThat(document.getFile()).exists();
+		assertThat(document(cache, 1L, "a")).isSameAs(document);
+	}
+
+	@Test
+	void evictionWhileASendfileResponseIsPendingCannotCutItShort() throws IOException {
+		DocumentCacheServiceImpl cache = cache(DataSize.ofMegabytes(1));
+		CachedDocument document = document(cache, 1L, "a");
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/post/downloads/csv/1");
+		request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		// as PostDownloadServiceImpl sends a leased document
+		try {
+			FileRangeSender.send(document.getFile(), document.getEtag(), "text/csv", "post_1.csv", request, response, false);
+		} finally {
+			cache.release(document);
+		}
+		cache.evictPost(1L);
+		assertThat(document.getFile()).doesNotExist();
+		assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isNull();
+		assertThat(response.getContentAsString()).isEqualTo("post a");
+	}
+
+	private DocumentCacheServiceImpl cache(DataSize maxSize) throws IOException {
+		return new DocumentCacheServiceImpl(dir, maxSize, new SimpleMeterRegistry());
+	}
+
+	// 6 bytes, so two documents fit in 8 bytes only one at a time
+	private static CachedDocument document(DocumentCacheServiceImpl cache, Long postId, String content) throws IOException {
+		return cache.getDocument(postId, ExportFormat.CSV, content,
+				out -> out.write(("post " + content).getBytes(StandardCharsets.UTF_8)));
+	}
+}
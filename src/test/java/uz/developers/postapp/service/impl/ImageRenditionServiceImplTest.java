@@ -0,0 +1,102 @@
+package uz.developers.postapp.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uz.developers.postapp.payload.ImageRendition;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageRenditionServiceImplTest {
+
+	@TempDir
+	Path dir;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(10));
+
+	@Test
+	void scaledImageFitsTheLongestSideOnWhite() {
+		BufferedImage wide = ImageRenditionServiceImpl.scale(new BufferedImage(1000, 500, BufferedImage.TYPE_INT_ARGB), 200);
+		assertThat(wide.getWidth()).isEqualTo(200);
+		assertThat(wide.getHeight()).isEqualTo(100);
+		// transparent pixels become white, JPEG has no alpha
+		assertThat(wide.getRGB(0, 0) & 0xFFFFFF).isEqualTo(0xFFFFFF);
+
+		BufferedImage tall = ImageRenditionServiceImpl.scale(new BufferedImage(300, 901, BufferedImage.TYPE_INT_RGB), 200);
+		assertThat(tall.getWidth()).isEqualTo(67);
+		assertThat(tall.getHeight()).isEqualTo(200);
+	}
+
+	@Test
+	void smallImageIsNotEnlarged() {
+		BufferedImage small = ImageRenditionServiceImpl.scale(new BufferedImage(50, 30, BufferedImage.TYPE_INT_RGB), 200);
+		assertThat(small.getWidth()).isEqualTo(50);
+		assertThat(small.getHeight()).isEqualTo(30);
+	}
+
+	@Test
+	void imageIsSentUntilItsRenditionIsRendered() throws Exception {
+		ImageStorageServiceImpl storage = new ImageStorageServiceImpl(dir.resolve("images"), meterRegistry);
+		ImageRenditionServiceImpl renditions = service(storage);
+		String name = storage.storeImage(image(400, 200));
+		String thumbnail = ImageRendition.THUMBNAIL.nameFor(name);
+		String medium = ImageRendition.MEDIUM.nameFor(name);
+
+		assertThat(renditions.getRenditionFile(thumbnail)).isEqualTo(storage.getImageFile(name));
+		executor.shutdown();
+		assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+		Path thumbnailFile = renditions.getRenditionFile(thumbnail);
+		assertThat(thumbnailFile).isEqualTo(storage.imageFile(thumbnail));
+		BufferedImage rendered = ImageIO.read(thumbnailFile.toFile());
+		assertThat(rendered.getWidth()).isEqualTo(200);
+		assertThat(rendered.getHeight()).isEqualTo(100);
+		assertThat(ImageIO.read(renditions.getRenditionFile(medium).toFile()).getWidth()).isEqualTo(400);
+	}
+
+	@Test
+	void queuedImageIsRenderedOnce() throws Exception {
+		ImageStorageServiceImpl storage = new ImageStorageServiceImpl(dir.resolve("images"), meterRegistry);
+		ImageRenditionServiceImpl renditions = service(storage);
+		String name = storage.storeImage(image(400, 200));
+		CountDownLatch busy = new CountDownLatch(1);
+		executor.execute(() -> {
+			try {
+				busy.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		assertThat(renditions.requestRenditions(name)).isTrue();
+		assertThat(renditions.requestRenditions(name)).isTrue();
+		assertThat(renditions.renderRenditions(name, false).isDone()).isTrue();
+		assertThat(executor.getQueue()).hasSize(1);
+		busy.countDown();
+		executor.shutdown();
+		assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+		assertThat(meterRegistry.get("images.renditions").tag("result", "rendered").counter().count()).isEqualTo(2);
+	}
+
+	private ImageRenditionServiceImpl service(ImageStorageServiceImpl storage) {
+		return new ImageRenditionServiceImpl(storage, executor, 0.8f, meterRegistry);
+	}
+
+	private Path image(int width, int height) throws IOException {
+		Path file = dir.resolve("image.png");
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", file.toFile());
+		return file;
+	}
+}
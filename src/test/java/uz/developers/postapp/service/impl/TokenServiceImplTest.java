@@ -0,0 +1,108 @@
+package uz.developers.postapp.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import uz.developers.postapp.exceptions.UserException;
+import uz.developers.postapp.payload.UserDto;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenServiceImplTest {
+
+	private static final String SECRET = "test-token-secret-of-at-least-32-bytes";
+
+	private final JdbcTemplate jdbcTemplate = database();
+
+	private final TokenServiceImpl tokenService = new TokenServiceImpl(jdbcTemplate, SECRET, Duration.ofHours(1));
+
+	@Test
+	void issuedTokenIsVerified() {
+		String token = tokenService.issueToken(user(7L), 0).getToken();
+		assertThat(tokenService.verifyToken(token)).isEqualTo(7L);
+		// another node with the same secret accepts it too
+		assertThat(new TokenServiceImpl(jdbcTemplate, SECRET, Duration.ofHours(1)).verifyToken(token)).isEqualTo(7L);
+	}
+
+	@Test
+	void tamperedTokenIsRejected() {
+		String token = tokenService.issueToken(user(7L), 0).getToken();
+		int dot = token.indexOf('.');
+		byte[] payload = Base64.getUrlDecoder().decode(token.substring(0, dot));
+		payload[7] = 8;
+		String otherUser = Base64.getUrlEncoder().withoutPadding().encodeToString(payload) + token.substring(dot);
+		assertInvalid(otherUser, "Invalid token");
+		byte[] signature = Base64.getUrlDecoder().decode(token.substring(dot + 1));
+		signature[0] ^= 1;
+		assertInvalid(token.substring(0, dot + 1) + Base64.getUrlEncoder().withoutPadding().encodeToString(signature),
+				"Invalid token");
+		String otherSecret = new TokenServiceImpl(jdbcTemplate, SECRET + "!", Duration.ofHours(1))
+				.issueToken(user(7L), 0).getToken();
+		assertInvalid(otherSecret, "Invalid token");
+	}
+
+	@Test
+	void garbledTokenIsRejected() {
+		assertInvalid("", "Invalid token");
+		assertInvalid("abc", "Invalid token");
+		assertInvalid("a", "Invalid token");
+		assertInvalid("not base64!.x", "Invalid token");
+		assertInvalid(".", "Invalid token");
+	}
+
+	@Test
+	void expiredTokenIsRejected() {
+		String token = new TokenServiceImpl(jdbcTemplate, SECRET, Duration.ofSeconds(-1)).issueToken(user(7L), 0).getToken();
+		assertInvalid(token, "Token has expired");
+	}
+
+	@Test
+	void tokenBelowTheRecordedMinimumVersionIsRejected() {
+		String old = tokenService.issueToken(user(7L), 1).getToken();
+		String current = tokenService.issueToken(user(7L), 2).getToken();
+		String deleted = tokenService.issueToken(user(8L), 5).getToken();
+		jdbcTemplate.update("insert into token_revocations values (?, ?, ?)", 7L, 2, Timestamp.from(Instant.now()));
+		jdbcTemplate.update("insert into token_revocations values (?, ?, ?)", 8L, Integer.MAX_VALUE, Timestamp.from(Instant.now()));
+		assertThat(tokenService.verifyToken(old)).isEqualTo(7L);
+
+		tokenService.refreshTokenVersions();
+		assertInvalid(old, "Token has been revoked");
+		assertThat(tokenService.verifyToken(current)).isEqualTo(7L);
+		assertInvalid(deleted, "Token has been revoked");
+	}
+
+	@Test
+	void revocationsOlderThanTheTtlArePurged() {
+		jdbcTemplate.update("insert into token_revocations values (?, ?, ?)", 7L, 2,
+				Timestamp.from(Instant.now().minus(Duration.ofHours(2))));
+		tokenService.refreshTokenVersions();
+		assertThat(jdbcTemplate.queryForObject("select count(*) from token_revocations", Integer.class)).isZero();
+		assertThat(tokenService.verifyToken(tokenService.issueToken(user(7L), 1).getToken())).isEqualTo(7L);
+	}
+
+	private void assertInvalid(String token, String message) {
+		assertThatThrownBy(() -> tokenService.verifyToken(token))
+				.isInstanceOf(UserException.class)
+				.hasMessage(message);
+	}
+
+	private static UserDto user(Long id) {
+		UserDto user = new UserDto();
+		user.setId(id);
+		return user;
+	}
+
+	private static JdbcTemplate database() {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+				"jdbc:h2:mem:tokens" + System.nanoTime() + ";DB_CLOSE_DELAY=-1"));
+		jdbcTemplate.execute("create table token_revocations (user_id bigint primary key, min_version integer not null, "
+				+ "revoked_at timestamp with time zone not null)");
+		return jdbcTemplate;
+	}
+}
@@ -0,0 +1,21 @@
+package uz.developers.postapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentFingerprintTest {
+
+	@Test
+	void caseAndWhitespaceAreIgnored() {
+		assertThat(ContentFingerprint.of("Hello  World"))
+				.isEqualTo(ContentFingerprint.of(" hello world\n"))
+				.hasSize(ContentFingerprint.LENGTH);
+	}
+
+	@Test
+	void differentTextsDiffer() {
+		assertThat(ContentFingerprint.of("Hello World")).isNotEqualTo(ContentFingerprint.of("Hello, World"));
+		assertThat(ContentFingerprint.of(null)).isNull();
+	}
+}
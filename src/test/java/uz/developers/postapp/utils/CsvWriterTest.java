@@ -0,0 +1,31 @@
+package uz.developers.postapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvWriterTest {
+
+	@Test
+	void plainFieldsAreWrittenAsIs() throws IOException {
+		assertThat(write("Title", 42, null)).isEqualTo("Title,42,\r\n");
+	}
+
+	@Test
+	void fieldsWithSeparatorsQuotesOrLineBreaksAreQuoted() throws IOException {
+		assertThat(write("a,b", "say \"hi\"", "line1\nline2"))
+				.isEqualTo("\"a,b\",\"say \"\"hi\"\"\",\"line1\nline2\"\r\n");
+	}
+
+	private static String write(Object... values) throws IOException {
+		StringWriter out = new StringWriter();
+		try (CsvWriter csv = new CsvWriter(out)) {
+			csv.writeRow(values);
+		}
+		return out.toString();
+	}
+
+}
@@ -0,0 +1,27 @@
+package uz.developers.postapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ETagsTest {
+
+	@Test
+	void sameVersionsGiveTheSameWeakTag() {
+		assertThat(ETags.weak(1L, 3L, List.of(List.of(7L, 1L), List.of(8L, 2L))))
+				.isEqualTo(ETags.weak(1L, 3L, List.of(List.of(7L, 1L), List.of(8L, 2L))))
+				.startsWith("W/\"")
+				.endsWith("\"");
+	}
+
+	@Test
+	void anyChangedPartChangesTheTag() {
+		String tag = ETags.weak(1L, List.of(7L, 8L), "title");
+		assertThat(ETags.weak(1L, List.of(7L, 9L), "title")).isNotEqualTo(tag);
+		assertThat(ETags.weak(1L, List.of(7L), "title")).isNotEqualTo(tag);
+		assertThat(ETags.weak(1L, List.of(7L, 8L), null)).isNotEqualTo(tag);
+		assertThat(ETags.weak("ab", "c")).isNotEqualTo(ETags.weak("a", "bc"));
+	}
+}
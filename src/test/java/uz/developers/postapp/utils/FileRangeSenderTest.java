@@ -0,0 +1,110 @@
+package uz.developers.postapp.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileRangeSenderTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void withoutRangeTheWholeFileIsSent() throws IOException {
+		MockHttpServletResponse response = send(null, null);
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getContentAsString()).isEqualTo("0123456789");
+		assertThat(response.getHeader("Accept-Ranges")).isEqualTo("bytes");
+	}
+
+	@Test
+	void rangeIsSentAsPartialContent() throws IOException {
+		MockHttpServletResponse response = send("bytes=2-5", null);
+		assertThat(response.getStatus()).isEqualTo(206);
+		assertThat(response.getContentAsString()).isEqualTo("2345");
+		assertThat(response.getHeader("Content-Range")).isEqualTo("bytes 2-5/10");
+	}
+
+	@Test
+	void openAndSuffixRanges() throws IOException {
+		assertThat(send("bytes=7-", null).getContentAsString()).isEqualTo("789");
+		assertThat(send("bytes=-3", null).getContentAsString()).isEqualTo("789");
+		assertThat(send("bytes=8-100", null).getContentAsString()).isEqualTo("89");
+	}
+
+	@Test
+	void rangeBeyondTheEndIsNotSatisfiable() throws IOException {
+		MockHttpServletResponse response = send("bytes=10-", null);
+		assertThat(response.getStatus()).isEqualTo(416);
+		assertThat(response.getHeader("Content-Range")).isEqualTo("bytes */10");
+	}
+
+	@Test
+	void invalidOrMultipleRangesGetTheWholeFile() throws IOException {
+		assertThat(send("bytes=5-2", null).getStatus()).isEqualTo(200);
+		assertThat(send("bytes=0-1,4-5", null).getContentAsString()).isEqualTo("0123456789");
+	}
+
+	@Test
+	void staleIfRangeGetsTheWholeFile() throws IOException {
+		MockHttpServletResponse response = send("bytes=2-5", "\"outdated\"");
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getContentAsString()).isEqualTo("0123456789");
+	}
+
+	@Test
+	void sendfileIsLeftToTheConnector() throws IOException {
+		Path file = file();
+		MockHttpServletRequest request = sendfileRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FileRangeSender.send(file, "\"etag\"", "text/csv", "export.csv", request, response);
+		assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isEqualTo(file.toRealPath().toString());
+		assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(10L);
+		assertThat(response.getContentAsByteArray()).isEmpty();
+	}
+
+	@Test
+	void withoutSendfileTheFileIsSentBeforeItMayBeDeleted() throws IOException {
+		Path file = file();
+		MockHttpServletRequest request = sendfileRequest();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FileRangeSender.send(file, "\"etag\"", "text/csv", "export.csv", request, response, false);
+		Files.delete(file);
+		assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isNull();
+		assertThat(response.getContentAsString()).isEqualTo("0123456789");
+	}
+
+	private Path file() throws IOException {
+		Path file = dir.resolve("export.csv");
+		Files.writeString(file, "0123456789", StandardCharsets.US_ASCII);
+		return file;
+	}
+
+	private static MockHttpServletRequest sendfileRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/export");
+		request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		return request;
+	}
+
+	private MockHttpServletResponse send(String range, String ifRange) throws IOException {
+		Path file = file();
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/export");
+		if (range != null) {
+			request.addHeader("Range", range);
+		}
+		if (ifRange != null) {
+			request.addHeader("If-Range", ifRange);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FileRangeSender.send(file, "text/csv", "export.csv", request, response);
+		return response;
+	}
+}
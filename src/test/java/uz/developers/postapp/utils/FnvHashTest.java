@@ -0,0 +1,22 @@
+package uz.developers.postapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FnvHashTest {
+
+	@Test
+	void fnv1aMatchesTheReferenceVectors() {
+		assertThat(FnvHash.add(FnvHash.OFFSET_BASIS, "")).isEqualTo(0xcbf29ce484222325L);
+		assertThat(FnvHash.add(FnvHash.OFFSET_BASIS, "a")).isEqualTo(0xaf63dc4c8601ec8cL);
+		assertThat(FnvHash.add(FnvHash.OFFSET_BASIS, "foobar")).isEqualTo(0x85944171f73967e8L);
+	}
+
+	@Test
+	void fmix64MatchesMurmurHash3() {
+		assertThat(FnvHash.fmix64(0)).isZero();
+		assertThat(FnvHash.fmix64(1)).isEqualTo(0xb456bcfc34c2cb2cL);
+		assertThat(FnvHash.of("foobar")).isEqualTo(0x2c22194922d1672bL);
+	}
+}